@@ -0,0 +1,88 @@
+'use strict';
+
+/**
+ * Compares the time to match a request in the radix tree of the generated router.js with the express router the
+ * controllers used to register their operations on, for every project RouterProjects generated.  Requests cycle
+ * through all routes of a project, with 42 for every path parameter.
+ *
+ *   node match.js [folder of the projects, ../target/router by default]
+ *
+ *   MATCH_REQUESTS  measured matches per router and project, 100000 by default
+ *   MATCH_WARMUP    matches before measuring, 10000 by default
+ */
+const fs = require('fs');
+const path = require('path');
+const express = require('express');
+
+const FOLDER = path.resolve(process.argv[2] || path.join(__dirname, '..', 'target', 'router'));
+const REQUESTS = parseInt(process.env.MATCH_REQUESTS, 10) || 100000;
+const WARMUP = process.env.MATCH_WARMUP !== undefined ? parseInt(process.env.MATCH_WARMUP, 10) : 10000;
+
+function requestsOf(routes) {
+  return routes.map((route) => {
+    const parts = route.split(' ');
+    return {method: parts[0].toUpperCase(), url: parts[1].replace(/\{[^}]+}/g, '42'), route: route};
+  });
+}
+
+function expressRouterOf(routes) {
+  const router = express.Router();
+  routes.forEach((route) => {
+    const parts = route.split(' ');
+    router[parts[0]](parts[1].replace(/\{([^}]+)}/g, ':$1'), (req, res) => {
+      res.route = route;
+    });
+  });
+  return router;
+}
+
+function matchExpress(router, request) {
+  const req = {method: request.method, url: request.url};
+  const res = {};
+  router.handle(req, res, () => undefined);
+  return res.route;
+}
+
+function matchRadix(router, request) {
+  const match = router.match(request.method, request.url);
+  return match && match.route;
+}
+
+/**
+ * Nanoseconds per match, after checking that every request matches its own route.
+ */
+function measure(match, requests) {
+  requests.forEach((request) => {
+    if (match(request) !== request.route) {
+      throw new Error(`${request.method} ${request.url} did not match ${request.route}`);
+    }
+  });
+  for (let i = 0; i < WARMUP; i++) {
+    match(requests[i % requests.length]);
+  }
+  const start = process.hrtime();
+  for (let i = 0; i < REQUESTS; i++) {
+    match(requests[i % requests.length]);
+  }
+  const time = process.hrtime(start);
+  return (time[0] * 1e9 + time[1]) / REQUESTS;
+}
+
+function pad(value, width) {
+  const text = String(value);
+  return text.length < width ? ' '.repeat(width - text.length) + text : text;
+}
+
+const projects = fs.readdirSync(FOLDER)
+  .filter(name => fs.existsSync(path.join(FOLDER, name, 'router.js')))
+  .sort((a, b) => parseInt(a, 10) - parseInt(b, 10));
+console.log(`${pad('paths', 6)} ${pad('routes', 7)} ${pad('router.js ns', 13)} ${pad('express ns', 11)} ${pad('speedup', 8)}`);
+projects.forEach((name) => {
+  const router = require(path.join(FOLDER, name, 'router.js'));
+  const requests = requestsOf(router.routes);
+  const radix = measure(request => matchRadix(router, request), requests);
+  const expressRouter = expressRouterOf(router.routes);
+  const expressTime = measure(request => matchExpress(expressRouter, request), requests);
+  console.log(`${pad(name, 6)} ${pad(router.routes.length, 7)} ${pad(radix.toFixed(0), 13)} `
+    + `${pad(expressTime.toFixed(0), 11)} ${pad(`${(expressTime / radix).toFixed(1)}x`, 8)}`);
+});
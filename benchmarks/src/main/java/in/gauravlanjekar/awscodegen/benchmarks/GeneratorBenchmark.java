@@ -0,0 +1,160 @@
+package in.gauravlanjekar.awscodegen.benchmarks;
+
+import in.gauravlanjekar.awscodegen.AwscodegenGenerator;
+import io.swagger.codegen.ClientOptInput;
+import io.swagger.codegen.ClientOpts;
+import io.swagger.codegen.CodegenOperation;
+import io.swagger.codegen.DefaultGenerator;
+import io.swagger.models.Swagger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the spec processing hot paths of {@link AwscodegenGenerator} on synthetic specs.
+ *
+ * Run with {@code java -jar target/benchmarks.jar -rf json -rff results.json}, the spec size can be changed
+ * with e.g. {@code -p paths=20000 -p tags=50 -p models=200}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Spec {
+
+        @Param({"100", "1000", "5000", "20000"})
+        public int paths;
+
+        @Param({"10"})
+        public int tags;
+
+        @Param({"20"})
+        public int models;
+    }
+
+    /**
+     * A fresh spec and generator for every invocation, preprocessSwagger modifies the spec.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+
+        AwscodegenGenerator config;
+        Swagger swagger;
+        File outputFolder;
+
+        @Setup(Level.Invocation)
+        public void setUp(Spec spec) throws IOException {
+            outputFolder = Files.createTempDirectory("awscodegen-benchmark").toFile();
+            config = new AwscodegenGenerator();
+            config.setOutputDir(outputFolder.getAbsolutePath());
+            swagger = SyntheticSpec.create(spec.paths, spec.tags, spec.models);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            delete(outputFolder);
+        }
+    }
+
+    /**
+     * Operations of a preprocessed spec, grouped by tag the way DefaultGenerator hands them over.
+     */
+    @State(Scope.Thread)
+    public static class Processed {
+
+        AwscodegenGenerator config;
+        Swagger swagger;
+        Map<String, List<CodegenOperation>> operationsByTag;
+
+        @Setup(Level.Trial)
+        public void setUp(Spec spec) {
+            config = new AwscodegenGenerator();
+            swagger = SyntheticSpec.create(spec.paths, spec.tags, spec.models);
+            config.processOpts();
+            config.preprocessSwagger(swagger);
+            DefaultGenerator generator = new DefaultGenerator();
+            generator.opts(new ClientOptInput().opts(new ClientOpts()).swagger(swagger).config(config));
+            operationsByTag = generator.processPaths(swagger.getPaths());
+        }
+    }
+
+    @Benchmark
+    public Swagger preprocessSwagger(Fresh fresh) {
+        fresh.config.processOpts();
+        fresh.config.preprocessSwagger(fresh.swagger);
+        return fresh.swagger;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> postProcessOperations(Processed processed) {
+        List<Map<String, Object>> result = new ArrayList<Map<String, Object>>();
+        for (Map.Entry<String, List<CodegenOperation>> entry : processed.operationsByTag.entrySet()) {
+            result.add(processed.config.postProcessOperations(operationsMap(entry.getKey(), entry.getValue())));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Object> postProcessSupportingFileData(Processed processed) {
+        List<Map<String, Object>> apis = new ArrayList<Map<String, Object>>();
+        for (Map.Entry<String, List<CodegenOperation>> entry : processed.operationsByTag.entrySet()) {
+            apis.add(operationsMap(entry.getKey(), entry.getValue()));
+        }
+        Map<String, Object> apiInfo = new HashMap<String, Object>();
+        apiInfo.put("apis", apis);
+        Map<String, Object> bundle = new HashMap<String, Object>();
+        bundle.put("swagger", processed.swagger);
+        bundle.put("apiInfo", apiInfo);
+        bundle.put("models", new ArrayList<Object>());
+        return processed.config.postProcessSupportingFileData(bundle);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<File> generate(Fresh fresh) {
+        return new DefaultGenerator()
+                .opts(new ClientOptInput().opts(new ClientOpts()).swagger(fresh.swagger).config(fresh.config))
+                .generate();
+    }
+
+    private static Map<String, Object> operationsMap(String tag, List<CodegenOperation> ops) {
+        Map<String, Object> objs = new HashMap<String, Object>();
+        objs.put("classname", tag);
+        objs.put("operation", new ArrayList<CodegenOperation>(ops));
+        Map<String, Object> operations = new HashMap<String, Object>();
+        operations.put("operations", objs);
+        return operations;
+    }
+
+    static void delete(File folder) throws IOException {
+        if (folder == null || !folder.exists()) {
+            return;
+        }
+        Files.walkFileTree(folder.toPath(), new SimpleFileVisitor<java.nio.file.Path>() {
+            @Override
+            public FileVisitResult visitFile(java.nio.file.Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(java.nio.file.Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package in.gauravlanjekar.awscodegen.benchmarks;
+
+import in.gauravlanjekar.awscodegen.AwscodegenGenerator;
+import io.swagger.codegen.ClientOptInput;
+import io.swagger.codegen.ClientOpts;
+import io.swagger.codegen.DefaultGenerator;
+import io.swagger.models.Swagger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Peak old generation heap of a full generator run.  The young generation is kept small and fixed, so the old
+ * generation peak is what the generator holds on to.  The spec is loaded before the peak is reset, the
+ * `peakHeapMB` counter is the heap the generator needs on top of it.
+ *
+ * Run with {@code java -jar target/benchmarks.jar MemoryBenchmark -prof gc} to also get the allocated bytes
+ * per run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xmn32m", "-Xmx4g"})
+public class MemoryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Spec {
+
+        @Param({"1000", "5000", "20000"})
+        public int paths;
+
+        @Param({"10"})
+        public int tags;
+
+        @Param({"20"})
+        public int models;
+    }
+
+    @State(Scope.Thread)
+    public static class Run {
+
+        AwscodegenGenerator config;
+        Swagger swagger;
+        File outputFolder;
+        long baseline;
+
+        @Setup(Level.Invocation)
+        public void setUp(Spec spec) throws IOException {
+            outputFolder = Files.createTempDirectory("awscodegen-benchmark").toFile();
+            config = new AwscodegenGenerator();
+            config.setOutputDir(outputFolder.getAbsolutePath());
+            swagger = SyntheticSpec.create(spec.paths, spec.tags, spec.models);
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+            baseline = oldGenUsed(false);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            GeneratorBenchmark.delete(outputFolder);
+        }
+    }
+
+    /**
+     * Peak old generation use of the last run above the loaded spec, in MB.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+
+        public double peakHeapMB;
+    }
+
+    @Benchmark
+    public List<File> generate(Run run, Heap heap) {
+        List<File> files = new DefaultGenerator()
+                .opts(new ClientOptInput().opts(new ClientOpts()).swagger(run.swagger).config(run.config))
+                .generate();
+        heap.peakHeapMB = (oldGenUsed(true) - run.baseline) / (1024.0 * 1024.0);
+        return files;
+    }
+
+    private static long oldGenUsed(boolean peak) {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getName().contains("Tenured")) {
+                used += peak ? pool.getPeakUsage().getUsed() : pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -0,0 +1,42 @@
+package in.gauravlanjekar.awscodegen.benchmarks;
+
+import in.gauravlanjekar.awscodegen.AwscodegenGenerator;
+import io.swagger.codegen.ClientOptInput;
+import io.swagger.codegen.ClientOpts;
+import io.swagger.codegen.DefaultGenerator;
+import io.swagger.models.Swagger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates the projects `router/match.js` compares the routing of, one synthetic project per number of paths.
+ *
+ * Run with {@code java -cp target/benchmarks.jar in.gauravlanjekar.awscodegen.benchmarks.RouterProjects
+ * target/router 10 100 1000}, the projects go to a folder named after their number of paths.
+ */
+public final class RouterProjects {
+
+    private RouterProjects() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File folder = new File(args.length > 0 ? args[0] : "target/router");
+        List<String> sizes = args.length > 1
+                ? Arrays.asList(args).subList(1, args.length) : Arrays.asList("10", "100", "1000");
+        for (String size : sizes) {
+            int paths = Integer.parseInt(size);
+            File outputFolder = new File(folder, size);
+            GeneratorBenchmark.delete(outputFolder);
+            AwscodegenGenerator config = new AwscodegenGenerator();
+            config.setOutputDir(outputFolder.getAbsolutePath());
+            // every synthetic resource has a list path and an item path.
+            Swagger swagger = SyntheticSpec.create(Math.max(1, paths / 2), 10, 20);
+            new DefaultGenerator()
+                    .opts(new ClientOptInput().opts(new ClientOpts()).swagger(swagger).config(config))
+                    .generate();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package in.gauravlanjekar.awscodegen.benchmarks;
+
+import io.swagger.models.*;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.PathParameter;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.IntegerProperty;
+import io.swagger.models.properties.Property;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds swagger specs of a given size.  Every resource path gets a list, a get by id and an update operation
+ * on one of the models, spread evenly over the tags.
+ */
+public final class SyntheticSpec {
+
+    private SyntheticSpec() {
+    }
+
+    public static Swagger create(int paths, int tags, int models) {
+        Swagger swagger = new Swagger();
+        swagger.setSwagger("2.0");
+        swagger.setInfo(new Info().title("Synthetic API").version("1.0.0"));
+        swagger.setHost("localhost:8080");
+        swagger.setBasePath("/");
+
+        Map<String, Model> definitions = new LinkedHashMap<String, Model>();
+        for (int i = 0; i < models; i++) {
+            definitions.put(modelName(i), model(i));
+        }
+        swagger.setDefinitions(definitions);
+
+        Map<String, Path> pathMap = new LinkedHashMap<String, Path>();
+        for (int i = 0; i < paths; i++) {
+            String tag = "Tag" + (i % tags);
+            String modelName = modelName(i % models);
+            pathMap.put("/resource" + i, new Path().get(listOperation(i, tag, modelName)));
+            pathMap.put("/resource" + i + "/{id}", new Path()
+                    .get(getOperation(i, tag, modelName))
+                    .put(updateOperation(i, tag, modelName)));
+        }
+        swagger.setPaths(pathMap);
+        return swagger;
+    }
+
+    private static String modelName(int index) {
+        return "Model" + index;
+    }
+
+    private static Model model(int index) {
+        StringProperty id = new StringProperty();
+        id.setVendorExtension("x-dynamo-hashkey", true);
+        StringProperty owner = new StringProperty();
+        Map<String, Object> ownerIndex = new HashMap<String, Object>();
+        ownerIndex.put("global", true);
+        ownerIndex.put("name", "OwnerIndex" + index);
+        owner.setVendorExtension("x-dynamo-index", ownerIndex);
+
+        Map<String, Property> properties = new LinkedHashMap<String, Property>();
+        properties.put("id", id);
+        properties.put("owner", owner);
+        properties.put("name", new StringProperty());
+        properties.put("count", new IntegerProperty());
+
+        ModelImpl model = new ModelImpl();
+        model.setType("object");
+        model.setProperties(properties);
+        model.setRequired(Collections.singletonList("id"));
+        return model;
+    }
+
+    private static Operation listOperation(int index, String tag, String modelName) {
+        return new Operation()
+                .tag(tag)
+                .operationId("list" + index)
+                .parameter(new QueryParameter().name("owner").type("string"))
+                .parameter(new QueryParameter().name("name").type("string"))
+                .response(200, new Response().description("ok").schema(new ArrayProperty(new RefProperty(modelName))));
+    }
+
+    private static Operation getOperation(int index, String tag, String modelName) {
+        return new Operation()
+                .tag(tag)
+                .operationId("get" + index)
+                .parameter(new PathParameter().name("id").type("string"))
+                .response(200, new Response().description("ok").schema(new RefProperty(modelName)));
+    }
+
+    private static Operation updateOperation(int index, String tag, String modelName) {
+        return new Operation()
+                .tags(Arrays.asList(tag))
+                .operationId("update" + index)
+                .parameter(new PathParameter().name("id").type("string"))
+                .parameter(new BodyParameter().name("body").schema(new RefModel(modelName)))
+                .response(200, new Response().description("ok").schema(new RefProperty(modelName)));
+    }
+}
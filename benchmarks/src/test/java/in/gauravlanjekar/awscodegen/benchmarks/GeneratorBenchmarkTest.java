@@ -0,0 +1,64 @@
+package in.gauravlanjekar.awscodegen.benchmarks;
+
+import io.swagger.models.Swagger;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs every benchmark once on a small spec, so the benchmarks keep working as the generator changes.
+ */
+public class GeneratorBenchmarkTest extends TestCase {
+
+    private final GeneratorBenchmark benchmark = new GeneratorBenchmark();
+    private GeneratorBenchmark.Spec spec;
+
+    @Override
+    protected void setUp() {
+        spec = new GeneratorBenchmark.Spec();
+        spec.paths = 10;
+        spec.tags = 3;
+        spec.models = 4;
+    }
+
+    public void testSyntheticSpecHasTheRequestedSize() {
+        Swagger swagger = SyntheticSpec.create(10, 3, 4);
+        assertEquals(20, swagger.getPaths().size());
+        assertEquals(4, swagger.getDefinitions().size());
+        assertEquals("Tag1", swagger.getPath("/resource4/{id}").getPut().getTags().get(0));
+    }
+
+    public void testPreprocessSwagger() throws IOException {
+        GeneratorBenchmark.Fresh fresh = new GeneratorBenchmark.Fresh();
+        fresh.setUp(spec);
+        try {
+            Swagger swagger = benchmark.preprocessSwagger(fresh);
+            // every path gets an OPTIONS operation for CORS.
+            assertNotNull(swagger.getPath("/resource0").getOptions());
+        } finally {
+            fresh.tearDown();
+        }
+    }
+
+    public void testPostProcessing() {
+        GeneratorBenchmark.Processed processed = new GeneratorBenchmark.Processed();
+        processed.setUp(spec);
+        List<Map<String, Object>> operations = benchmark.postProcessOperations(processed);
+        assertEquals(3, operations.size());
+        assertNotNull(benchmark.postProcessSupportingFileData(processed));
+    }
+
+    public void testGenerate() throws IOException {
+        GeneratorBenchmark.Fresh fresh = new GeneratorBenchmark.Fresh();
+        fresh.setUp(spec);
+        try {
+            List<File> files = benchmark.generate(fresh);
+            assertTrue(files.contains(new File(fresh.outputFolder, "service/Tag0Service.js")));
+        } finally {
+            fresh.tearDown();
+        }
+    }
+}
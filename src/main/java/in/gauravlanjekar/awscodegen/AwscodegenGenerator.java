@@ -3,6 +3,8 @@ package in.gauravlanjekar.awscodegen;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.google.common.collect.ArrayListMultimap;
@@ -10,27 +12,71 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import io.swagger.codegen.*;
+import io.swagger.codegen.ignore.CodegenIgnoreProcessor;
 import io.swagger.models.*;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.HeaderParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.PathParameter;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.models.properties.AbstractNumericProperty;
 import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.MapProperty;
+import io.swagger.models.properties.ObjectProperty;
 import io.swagger.models.properties.Property;
+import io.swagger.models.properties.PropertyBuilder;
 import io.swagger.models.properties.RefProperty;
 import io.swagger.models.properties.StringProperty;
+import io.swagger.util.Json;
 import io.swagger.util.Yaml;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    private static final Pattern PARTIAL = Pattern.compile("\\{\\{>\\s*([^}\\s]+)\\s*}}");
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{[{#^/&]?\\s*([^}>!\\s]+)\\s*}}");
+    private static final String SWAGGER_YAML = "swagger.yaml";
+    private static final ObjectMapper SWAGGER_YAML_MAPPER = createSwaggerYamlMapper();
+    private static final ObjectMapper HASH_MAPPER = Json.mapper().copy()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
     // source folder where to write the files
     protected String sourceFolder = "src";
     protected String apiVersion = "1.0.0";
     protected String implFolder = "service";
     protected int serverPort = 8080;
     protected String projectName = "swagger-aws-server";
+    protected boolean pagination = true;
+    protected boolean metrics = true;
+    protected boolean loadTest = true;
+    protected boolean bundle = true;
+    protected int maxPageSize = 100;
+    protected String handlerMode = "express";
+    protected String bundleMode = "single";
+    protected int batchConcurrency = 4;
+    protected int directConcurrency = 16;
+    protected boolean compression = true;
+    protected int minimumCompressionSize = 1024;
+    protected int gatewayCacheTtl = 0;
+    protected List<Map<String, Object>> gatewayCacheSettings = new ArrayList<Map<String, Object>>();
+    protected boolean incremental = false;
+    protected IncrementalManifest manifest;
+    protected int renderThreads = 0;
+    protected ParallelRenderer renderer;
+    protected GenerationReport report;
+    protected Swagger swagger;
+    protected boolean parsing = false;
 
 
     public AwscodegenGenerator() {
@@ -59,6 +105,7 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
         apiTemplateFiles.put(
                 "controller.mustache",   // the template to use
                 ".js");       // the extension for each file to write
+        apiTemplateFiles.put("validator.mustache", "Validator.js");
 
         /*
          * Template Location.  This is the location which templates will be read from.  The generator
@@ -78,6 +125,11 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
                         "void", "while", "with", "yield")
         );
 
+        // dynamoose schemas and the generated JavaScript only know Number.
+        for (String numeric : Arrays.asList("integer", "long", "number", "float", "double")) {
+            typeMapping.put(numeric, "Number");
+        }
+
         /*
          * Additional Properties.  These values can be passed to the templates and
          * are available in models, apis, and supporting files
@@ -88,15 +140,18 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
 
         supportingFiles.add(new SupportingFile("writer.mustache", ("utils").replace(".", "/"), "writer.js"));
 
+    }
 
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> getApis(Map<String, Object> objs) {
+        Map<String, Object> apiInfo = (Map<String, Object>) objs.get("apiInfo");
+        return (List<Map<String, Object>>) apiInfo.get("apis");
     }
 
     @SuppressWarnings("unchecked")
     private static List<Map<String, Object>> getOperations(Map<String, Object> objs) {
         List<Map<String, Object>> result = new ArrayList<>();
-        Map<String, Object> apiInfo = (Map<String, Object>) objs.get("apiInfo");
-        List<Map<String, Object>> apis = (List<Map<String, Object>>) apiInfo.get("apis");
-        for (Map<String, Object> api : apis) {
+        for (Map<String, Object> api : getApis(objs)) {
             result.add((Map<String, Object>) api.get("operations"));
         }
         return result;
@@ -192,6 +247,14 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
             String stringToMatch = File.separator + "controllers" + File.separator;
             String replacement = File.separator + implFolder + File.separator;
             result = result.replaceAll(Pattern.quote(stringToMatch), replacement);
+        } else if (templateName.equals("handler.mustache")) {
+            String stringToMatch = File.separator + "controllers" + File.separator;
+            String replacement = File.separator + "handlers" + File.separator;
+            result = result.replaceAll(Pattern.quote(stringToMatch), replacement);
+        } else if (templateName.equals("validator.mustache")) {
+            String stringToMatch = File.separator + "controllers" + File.separator;
+            String replacement = File.separator + "validators" + File.separator;
+            result = result.replaceAll(Pattern.quote(stringToMatch), replacement);
         }
         return result;
     }
@@ -229,8 +292,90 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
         Map<String, Object> objectMap = (Map<String, Object>) objs.get("operations");
         @SuppressWarnings("unchecked")
         List<CodegenOperation> operations = (List<CodegenOperation>) objectMap.get("operation");
+        String tag = operations.isEmpty() ? null : operations.get(0).baseName;
+        if (report != null) {
+            report.enter("postProcessOperations", tag);
+            report.count("operations", operations.size());
+            for (String templateName : apiTemplateFiles.keySet()) {
+                report.expect(apiFilename(templateName, tag), templateName, tag);
+            }
+        }
+        if (manifest != null) {
+            trackApi(operations);
+        }
+        RequestValidatorCompiler validators = new RequestValidatorCompiler(swagger.getDefinitions());
         for (CodegenOperation operation : operations) {
+            if (operation.vendorExtensions.containsKey("x-aws-etag")) {
+                // If-None-Match is answered by the controllers, the services do not get it.
+                removeETagParam(operation.allParams);
+                removeETagParam(operation.headerParams);
+            }
+            String validator = compileValidator(validators, operation);
             operation.httpMethod = operation.httpMethod.toLowerCase();
+            if (operation.vendorExtensions.containsKey("x-aws-paginated")) {
+                objs.put("hasPaginatedOperations", true);
+            }
+            if (operation.vendorExtensions.containsKey("x-aws-batch-operation")) {
+                objs.put("hasBatchOperations", true);
+            }
+            if (operation.vendorExtensions.containsKey("x-aws-parallel-scan")) {
+                objs.put("hasParallelScanOperations", true);
+            }
+            if (operation.vendorExtensions.containsKey("x-aws-cache")) {
+                objs.put("hasCachedOperations", true);
+            }
+            if (operation.vendorExtensions.containsKey("x-aws-projection")) {
+                objs.put("hasProjectedOperations", true);
+            }
+            if (operation.vendorExtensions.containsKey("x-aws-etag")) {
+                objs.put("hasETagOperations", true);
+            }
+            if (!operation.pathParams.isEmpty()) {
+                objs.put("hasPathParameters", true);
+            }
+            if (isModelOperation(operation)) {
+                objs.put("hasModelOperations", true);
+            }
+            // the written item is identified by the id path parameter or by the hash key of the body.
+            String itemKey = null;
+            if (!operation.pathParams.isEmpty()) {
+                itemKey = operation.pathParams.get(0).paramName;
+            } else if (operation.bodyParam != null && !operation.vendorExtensions.containsKey("x-aws-batch-write")) {
+                String body = operation.bodyParam.paramName;
+                itemKey = body + " && " + body + "['" + operation.vendorExtensions.get("x-aws-dynamo-hash-key") + "']";
+            }
+            if (operation.vendorExtensions.containsKey("x-aws-cache-invalidate")) {
+                objs.put("hasCachedOperations", true);
+                if (operation.vendorExtensions.containsKey("x-aws-cruds-is-post")) {
+                    // new items are keyed by the request id, only the saved item knows it.
+                    operation.vendorExtensions.put("x-aws-cache-key",
+                            "result && result['" + operation.vendorExtensions.get("x-aws-dynamo-hash-key") + "']");
+                } else if (itemKey != null) {
+                    operation.vendorExtensions.put("x-aws-cache-key", itemKey);
+                }
+            }
+
+            // the extensions below are only used by the templates, keep them out of api/swagger.yaml.
+            operation.vendorExtensions = new HashMap<String, Object>(operation.vendorExtensions);
+            // lists without an ETag are the unpaginated ones and parallel scans, written page by page as they are read.
+            if ("array".equals(operation.returnContainer) && operation.vendorExtensions.containsKey("x-aws-cruds-is-get")
+                    && !operation.vendorExtensions.containsKey("x-aws-etag")) {
+                operation.vendorExtensions.put("x-aws-stream-response", true);
+                objs.put("hasStreamedOperations", true);
+            }
+            if (!validator.isEmpty()) {
+                operation.vendorExtensions.put("x-aws-validator", validator);
+                operation.vendorExtensions.put("x-aws-validated", true);
+                objs.put("hasValidatedOperations", true);
+            }
+            if (operation.vendorExtensions.containsKey("x-aws-item-write")) {
+                objs.put("hasItemWrites", true);
+                operation.vendorExtensions.put("x-aws-item-key", itemKey);
+            }
+            operation.vendorExtensions.put("x-aws-item-body", operation.bodyParam != null ? operation.bodyParam.paramName : "{}");
+            if ("operation".equals(bundleMode)) {
+                bindOperationRequires(operation, (String) objectMap.get("classname"));
+            }
 
             List<CodegenParameter> params = operation.allParams;
             if (params != null && params.size() == 0) {
@@ -255,13 +400,378 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
                 }
             }
         }
+        objs.put("validatorModule", validators.compileModule());
+        if (renderer != null && !operations.isEmpty()) {
+            for (String templateName : apiTemplateFiles.keySet()) {
+                renderer.register(apiFilename(templateName, tag), templateName, objs);
+            }
+        }
+        exitPhase();
+        return objs;
+    }
+
+    /**
+     * Only these operations read or save through the dynamoose models, the others use the DocumentClient.
+     */
+    private static boolean isModelOperation(CodegenOperation operation) {
+        return operation.vendorExtensions.containsKey("x-aws-cruds-model-type")
+                && !operation.vendorExtensions.containsKey("x-aws-batch-operation")
+                && !operation.vendorExtensions.containsKey("x-aws-parallel-scan")
+                && !operation.vendorExtensions.containsKey("x-aws-item-write");
+    }
+
+    /**
+     * With bundleMode=operation the handler and the service function of an operation require the modules they use
+     * themselves, instead of the modules of the tag requiring what any of its operations uses.  The bundle of an
+     * operation then only lists those modules, see getBundles.
+     */
+    private void bindOperationRequires(CodegenOperation operation, String classname) {
+        Map<String, Object> extensions = operation.vendorExtensions;
+        List<Map<String, String>> handler = new ArrayList<Map<String, String>>();
+        addRequire(handler, "proxy", "utils/proxy");
+        if (!operation.pathParams.isEmpty()) {
+            addRequire(handler, "router", "router");
+        }
+        if (metrics) {
+            addRequire(handler, "metrics", "utils/metrics");
+        }
+        if (extensions.containsKey("x-aws-etag")) {
+            addRequire(handler, "etag", "utils/etag");
+        }
+        if (extensions.containsKey("x-aws-paginated")) {
+            addRequire(handler, "pagination", "utils/pagination");
+        }
+        addRequire(handler, classname + "Service", implFolder + "/" + classname + "Service");
+        if (extensions.containsKey("x-aws-validated")) {
+            addRequire(handler, classname + "Validator", "validators/" + classname + "Validator");
+        }
+
+        List<Map<String, String>> service = new ArrayList<Map<String, String>>();
+        if (extensions.containsKey("x-aws-paginated")) {
+            addRequire(service, "pagination", "utils/pagination");
+        }
+        if (extensions.containsKey("x-aws-batch-operation")) {
+            addRequire(service, "batch", "utils/batch");
+        }
+        if (extensions.containsKey("x-aws-parallel-scan")) {
+            addRequire(service, "scan", "utils/scan");
+        }
+        if (extensions.containsKey("x-aws-cache") || extensions.containsKey("x-aws-cache-invalidate")) {
+            addRequire(service, "cache", "utils/cache");
+        }
+        if (extensions.containsKey("x-aws-projection")) {
+            addRequire(service, "projection", "utils/projection");
+        }
+        if (extensions.containsKey("x-aws-item-write")) {
+            addRequire(service, "item", "utils/item");
+        }
+        if (isModelOperation(operation)) {
+            addRequire(service, "models", "models/dynamoose-wrapper");
+        }
+        extensions.put("x-aws-handler-requires", handler);
+        extensions.put("x-aws-service-requires", service);
+    }
+
+    private static void addRequire(List<Map<String, String>> requires, String name, String module) {
+        Map<String, String> require = new HashMap<String, String>();
+        require.put("name", name);
+        // handlers, services and validators are all one folder below the project.
+        require.put("path", "../" + module);
+        require.put("file", module + ".js");
+        requires.add(require);
+    }
+
+    private static void removeETagParam(List<CodegenParameter> params) {
+        for (Iterator<CodegenParameter> it = params.iterator(); it.hasNext(); ) {
+            if (it.next().vendorExtensions.containsKey("x-aws-etag-param")) {
+                it.remove();
+            }
+        }
+        for (int i = 0; i < params.size(); i++) {
+            params.get(i).hasMore = i < params.size() - 1;
+        }
+    }
+
+    /**
+     * Compiles the checks of the parameters of an operation, empty when there are none.
+     */
+    private String compileValidator(RequestValidatorCompiler validators, CodegenOperation operation) {
+        Path path = swagger.getPath(operation.path);
+        Operation swaggerOperation = path == null ? null
+                : path.getOperationMap().get(HttpMethod.valueOf(operation.httpMethod.toUpperCase()));
+        if (swaggerOperation == null || operation.vendorExtensions.containsKey("x-ignored")) {
+            return "";
+        }
+        return validators.compileOperation(swaggerOperation, operation.allParams);
+    }
+
+    /**
+     * Records the operations of a tag, together with the model definitions they read and write, as the input
+     * of the api files of that tag.  Definitions no operation of the tag reaches are left out, so changing a model
+     * only renders the api files of the tags that use it again.
+     */
+    private void trackApi(List<CodegenOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        String tag = operations.get(0).baseName;
+        List<Object> fragment = new ArrayList<Object>();
+        Set<String> referenced = new TreeSet<String>();
+        for (CodegenOperation operation : operations) {
+            Path path = swagger.getPath(operation.path);
+            Operation swaggerOperation = path == null ? null
+                    : path.getOperationMap().get(HttpMethod.valueOf(operation.httpMethod.toUpperCase()));
+            fragment.add(operation.path);
+            fragment.add(swaggerOperation);
+            if (swaggerOperation != null) {
+                addReferences(swaggerOperation, referenced);
+            }
+        }
+        Map<String, Model> definitions = new TreeMap<String, Model>();
+        Deque<String> pending = new ArrayDeque<String>(referenced);
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            Model definition = swagger.getDefinitions() == null ? null : swagger.getDefinitions().get(name);
+            if (definition == null || definitions.containsKey(name)) {
+                continue;
+            }
+            definitions.put(name, definition);
+            Set<String> nested = new HashSet<String>();
+            addReferences(definition, nested);
+            pending.addAll(nested);
+        }
+        fragment.add(definitions);
+        String fragmentHash = IncrementalManifest.hashJson(HASH_MAPPER, fragment);
+        for (String templateName : apiTemplateFiles.keySet()) {
+            manifest.track("apis/" + tag, apiFilename(templateName, tag), fragmentHash, getTemplateHash(templateName));
+        }
+    }
+
+    /**
+     * Adds the definitions an operation references in its parameters and responses, and the model it reads or
+     * writes.
+     */
+    private static void addReferences(Operation operation, Set<String> names) {
+        Object modelType = operation.getVendorExtensions().get("x-aws-cruds-model-type");
+        if (modelType != null) {
+            names.add(modelType.toString());
+        }
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if (parameter instanceof BodyParameter) {
+                    addReferences(((BodyParameter) parameter).getSchema(), names);
+                }
+            }
+        }
+        if (operation.getResponses() != null) {
+            for (Response response : operation.getResponses().values()) {
+                addReferences(response.getSchema(), names);
+            }
+        }
+    }
+
+    private static void addReferences(Model model, Set<String> names) {
+        if (model instanceof RefModel) {
+            names.add(((RefModel) model).getSimpleRef());
+        } else if (model instanceof ArrayModel) {
+            addReferences(((ArrayModel) model).getItems(), names);
+        } else if (model instanceof ComposedModel) {
+            for (Model part : ((ComposedModel) model).getAllOf()) {
+                addReferences(part, names);
+            }
+        } else if (model instanceof ModelImpl) {
+            addReferences(((ModelImpl) model).getAdditionalProperties(), names);
+        }
+        if (model != null && model.getProperties() != null) {
+            for (Property property : model.getProperties().values()) {
+                addReferences(property, names);
+            }
+        }
+    }
+
+    private static void addReferences(Property property, Set<String> names) {
+        if (property instanceof RefProperty) {
+            names.add(((RefProperty) property).getSimpleRef());
+        } else if (property instanceof ArrayProperty) {
+            addReferences(((ArrayProperty) property).getItems(), names);
+        } else if (property instanceof MapProperty) {
+            addReferences(((MapProperty) property).getAdditionalProperties(), names);
+        } else if (property instanceof ObjectProperty && ((ObjectProperty) property).getProperties() != null) {
+            for (Property nested : ((ObjectProperty) property).getProperties().values()) {
+                addReferences(nested, names);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> postProcessModels(Map<String, Object> objs) {
+        enterPhase("postProcessModels");
+        objs = super.postProcessModels(objs);
+        if (report != null) {
+            report.count("models", ((List<?>) objs.get("models")).size());
+        }
+        if (manifest != null) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> models = (List<Map<String, Object>>) objs.get("models");
+            for (Map<String, Object> model : models) {
+                String name = ((CodegenModel) model.get("model")).name;
+                Model definition = swagger.getDefinitions() == null ? null : swagger.getDefinitions().get(name);
+                String fragmentHash = IncrementalManifest.hashJson(HASH_MAPPER, Arrays.asList(name, definition));
+                for (Map.Entry<String, String> template : modelTemplateFiles.entrySet()) {
+                    String filename = modelFileFolder() + File.separator + toModelFilename(name) + template.getValue();
+                    manifest.track("models/" + name, filename, fragmentHash, getTemplateHash(template.getKey()));
+                }
+            }
+        }
+        exitPhase();
+        return objs;
+    }
+
+    @Override
+    public Map<String, Object> postProcessAllModels(Map<String, Object> objs) {
+        enterPhase("postProcessAllModels");
+        objs = super.postProcessAllModels(objs);
+        for (Map.Entry<String, Object> entry : objs.entrySet()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> models = (Map<String, Object>) entry.getValue();
+            for (Map.Entry<String, String> template : modelTemplateFiles.entrySet()) {
+                String filename = modelFileFolder() + File.separator + toModelFilename(entry.getKey()) + template.getValue();
+                if (report != null) {
+                    report.expect(filename, template.getKey(), null);
+                }
+                if (renderer != null) {
+                    renderer.register(filename, template.getKey(), models);
+                }
+            }
+        }
+        exitPhase();
         return objs;
     }
 
+    @Override
+    public CodegenModel fromModel(String name, Model model, Map<String, Model> allDefinitions) {
+        enterPhase("fromModel");
+        CodegenModel codegenModel = super.fromModel(name, model, allDefinitions);
+        exitPhase();
+        return codegenModel;
+    }
+
+    @Override
+    public CodegenOperation fromOperation(String path, String httpMethod, Operation operation,
+                                          Map<String, Model> definitions, Swagger swagger) {
+        enterPhase("fromOperation");
+        CodegenOperation codegenOperation = super.fromOperation(path, httpMethod, operation, definitions, swagger);
+        exitPhase();
+        return codegenOperation;
+    }
+
+    private void enterPhase(String phase) {
+        if (report != null) {
+            report.enter(phase);
+        }
+    }
+
+    private void exitPhase() {
+        if (report != null) {
+            report.exit();
+        }
+    }
+
     @Override
     public void processOpts() {
+        if (getReport() != null) {
+            if (parsing) {
+                report.exit();
+                parsing = false;
+            }
+            report.enter("processOpts");
+        }
         super.processOpts();
 
+        if (System.getProperty("nopagination") != null) {
+            pagination = false;
+        }
+        if (System.getProperty("maxPageSize") != null) {
+            maxPageSize = Integer.parseInt(System.getProperty("maxPageSize"));
+        }
+        additionalProperties.put("maxPageSize", maxPageSize);
+        additionalProperties.put("nextCursorHeader", NEXT_CURSOR_HEADER);
+        additionalProperties.put("pagination", pagination);
+
+        if (System.getProperty("nometrics") != null) {
+            metrics = false;
+        }
+        additionalProperties.put("metrics", metrics);
+
+        if (System.getProperty("noloadtest") != null) {
+            loadTest = false;
+        }
+        if (System.getProperty("nobundle") != null) {
+            bundle = false;
+        }
+        additionalProperties.put("bundle", bundle);
+
+        if (System.getProperty("batchConcurrency") != null) {
+            batchConcurrency = Integer.parseInt(System.getProperty("batchConcurrency"));
+        }
+        additionalProperties.put("batchConcurrency", batchConcurrency);
+        if (System.getProperty("directConcurrency") != null) {
+            directConcurrency = Integer.parseInt(System.getProperty("directConcurrency"));
+        }
+        additionalProperties.put("directConcurrency", directConcurrency);
+
+        if (System.getProperty("nocompression") != null) {
+            compression = false;
+        }
+        if (System.getProperty("minimumCompressionSize") != null) {
+            minimumCompressionSize = Integer.parseInt(System.getProperty("minimumCompressionSize"));
+        }
+        additionalProperties.put("compression", compression);
+        additionalProperties.put("minimumCompressionSize", minimumCompressionSize);
+        if (System.getProperty("gatewayCacheTtl") != null) {
+            gatewayCacheTtl = Integer.parseInt(System.getProperty("gatewayCacheTtl"));
+        }
+
+        if (System.getProperty("incremental") != null) {
+            incremental = true;
+        }
+        // the daemon passes it per run instead of as a System property.
+        String threads = additionalProperties.containsKey("renderThreads")
+                ? String.valueOf(additionalProperties.get("renderThreads")) : System.getProperty("renderThreads");
+        if (threads != null) {
+            renderThreads = threads.isEmpty() ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(threads);
+        }
+        if (renderThreads > 0) {
+            renderer = new ParallelRenderer(this, renderThreads, report);
+        }
+
+        if (System.getProperty("handlerMode") != null) {
+            handlerMode = System.getProperty("handlerMode");
+        }
+        if (System.getProperty("bundleMode") != null) {
+            bundleMode = System.getProperty("bundleMode");
+        }
+        if ("operation".equals(bundleMode)) {
+            // every operation gets its own Lambda function, those are always invoked through the proxy integration.
+            handlerMode = "direct";
+            apiTemplateFiles.put("handler.mustache", "Handler.js");
+            additionalProperties.put("operationBundles", true);
+            supportingFiles.add(new SupportingFile("bundles.mustache", "", "bundles.json"));
+        } else if (!"single".equals(bundleMode)) {
+            LOGGER.warn("Unknown bundleMode " + bundleMode + ", falling back to single.");
+            bundleMode = "single";
+        }
+        if ("direct".equals(handlerMode)) {
+            // API Gateway proxy events are routed straight to the services, no express app is generated.
+            apiTemplateFiles.remove("controller.mustache");
+            additionalProperties.put("directHandler", true);
+            supportingFiles.add(new SupportingFile("routes.mustache", "", "routes.js"));
+            supportingFiles.add(new SupportingFile("proxy.mustache", "utils", "proxy.js"));
+        } else if (!"express".equals(handlerMode)) {
+            LOGGER.warn("Unknown handlerMode " + handlerMode + ", falling back to express.");
+            handlerMode = "express";
+        }
+
 
 
         /*
@@ -273,14 +783,33 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
         //   "controllers",
         //   "controller.js")
         // );
-        supportingFiles.add(new SupportingFile("swagger.mustache",
-                "api",
-                "swagger.yaml")
-        );
+        // api/swagger.yaml is streamed to disk by writeSwaggerYaml.
 
         supportingFiles.add(new SupportingFile("model-dynamoose-wrapper.mustache", "models", "dynamoose-wrapper.js"));
+        // the radix tree the controllers and routes.js match request paths with.
+        supportingFiles.add(new SupportingFile("router.mustache", "", "router.js"));
+        // the services of the direct invocation path of index.js.
+        supportingFiles.add(new SupportingFile("services.mustache", "", "services.js"));
+        supportingFiles.add(new SupportingFile("direct.mustache", "utils", "direct.js"));
+        if (pagination) {
+            supportingFiles.add(new SupportingFile("pagination.mustache", "utils", "pagination.js"));
+        }
+        if (metrics) {
+            supportingFiles.add(new SupportingFile("metrics.mustache", "utils", "metrics.js"));
+        }
+        if (loadTest) {
+            supportingFiles.add(new SupportingFile("loadtest.mustache", "loadtest", "run.js"));
+            supportingFiles.add(new SupportingFile("loadtest-events.mustache", "loadtest", "events.json"));
+        }
+        if (bundle) {
+            supportingFiles.add(new SupportingFile("bundle.mustache", "bundle", "build.js"));
+        }
 
         writeOptional(outputFolder, new SupportingFile("index.mustache", "", "index.js"));
+        if ("express".equals(handlerMode)) {
+            // the app index.js proxies the events to, bundle/build.js reaches the controllers through it.
+            writeOptional(outputFolder, new SupportingFile("app.mustache", "", "api.js"));
+        }
         writeOptional(outputFolder, new SupportingFile("package.mustache", "", "package.json"));
         writeOptional(outputFolder, new SupportingFile("README.mustache", "", "README.md"));
         if (System.getProperty("noservice") == null) {
@@ -288,10 +817,50 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
                     "service.mustache",   // the template to use
                     "Service.js");       // the extension for each file to write
         }
+        exitPhase();
+    }
+
+    /**
+     * Reports the time until {@link #processOpts()} as reading the spec, once.
+     */
+    public void startParsing() {
+        if (getReport() != null && !parsing) {
+            report.enter("parse");
+            parsing = true;
+        }
+    }
+
+    /**
+     * The output folder is the last option swagger-codegen's CLI sets before it reads the spec.
+     */
+    @Override
+    public void setOutputDir(String dir) {
+        super.setOutputDir(dir);
+        startParsing();
+    }
+
+    /**
+     * The phase report of this run, null unless `-DphaseReport` is set.
+     */
+    public GenerationReport getReport() {
+        if (report == null && System.getProperty("phaseReport") != null) {
+            report = new GenerationReport();
+        }
+        return report;
+    }
+
+    /**
+     * Stops the render threads of a run that failed, a run that completes stops them itself.
+     */
+    public void abortRendering() {
+        if (renderer != null) {
+            renderer.abort();
+        }
     }
 
     @Override
     public void preprocessSwagger(Swagger swagger) {
+        enterPhase("preprocessSwagger");
         String host = swagger.getHost();
         String port = "8080";
         if (host != null) {
@@ -318,6 +887,11 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
         }
 
 
+        gatewayCacheSettings.clear();
+        addBatchOperations(swagger);
+        addPatchOperations(swagger);
+        bindVersionAttributes(swagger);
+
         // need vendor extensions for x-swagger-router-controller
         Map<String, Path> paths = swagger.getPaths();
         if (paths != null) {
@@ -342,12 +916,18 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
                             operation.getVendorExtensions().put("x-swagger-router-controller", sanitizeTag(tag));
                         }
                         if (method.equals(HttpMethod.GET)) {
+                            boolean parallelScan = bindParallelScan(operation);
+                            bindCache(operation);
                             //add a model binding to the method.
                             if (operation.getResponses() != null && operation.getResponses().size() > 0) {
                                 Response okResponse = operation.getResponses().get("200");
                                 String type = okResponse.getSchema().getType();
                                 Property property = okResponse.getSchema();
+                                boolean single = !"array".equals(type);
                                 if ("array".equals(type)) {
+                                    if (pagination && !parallelScan) {
+                                        addPaginationParameters(operation, okResponse);
+                                    }
                                     ArrayProperty arrayProperty = (ArrayProperty) property;
                                     type = arrayProperty.getItems().getType();
                                     property = arrayProperty.getItems();
@@ -357,113 +937,1208 @@ public class AwscodegenGenerator extends DefaultCodegen implements CodegenConfig
                                     type = refProperty.getSimpleRef();
                                 }
                                 operation.getVendorExtensions().put("x-aws-cruds-model-type", type);
+                                if (!parallelScan) {
+                                    bindDynamoQueryKey(swagger, pathname, operation, type);
+                                } else {
+                                    LOGGER.warn(operation.getOperationId() + " (GET " + pathname + ") is marked with"
+                                            + " x-aws-parallel-scan, generating a full table scan of model " + type
+                                            + " in " + operation.getVendorExtensions().get("x-aws-parallel-scan")
+                                            + " segments.");
+                                }
+                                bindProjection(swagger, operation, type);
+                                // the ETag header goes out before the body, so lists streamed page by page cannot
+                                // be tagged.  Only single items and paginated lists, one bounded page, are.
+                                if (!parallelScan && (single
+                                        || operation.getVendorExtensions().containsKey("x-aws-paginated"))) {
+                                    bindETag(swagger, operation, okResponse, type, single);
+                                }
                             }
                         }
-                        switch (method){
-                            case GET:
-                                operation.getVendorExtensions().put("x-aws-cruds-is-get", true);
-                                break;
-                            case PUT:
-                                operation.getVendorExtensions().put("x-aws-cruds-is-put", true);
-                                break;
-                            case DELETE:
-                                operation.getVendorExtensions().put("x-aws-cruds-is-delete", true);
-                                break;
-                            case POST:
-                                operation.getVendorExtensions().put("x-aws-cruds-is-post", true);
-                                break;
+                        if ("operation".equals(bundleMode)) {
+                            String functionName = projectName + "-" + operation.getOperationId();
+                            operation.getVendorExtensions().put("x-aws-function-name", functionName);
+                            operation.getVendorExtensions().put("x-amazon-apigateway-integration",
+                                    getLambdaProxyIntegration(functionName));
+                        }
+                        bindRequestValidator(operation);
+                        bindGatewayCache(pathname, method, operation);
+                        // batch operations are no single item crud operations.
+                        if (operation.getVendorExtensions().get("x-aws-batch-operation") == null) {
+                            switch (method) {
+                                case GET:
+                                    operation.getVendorExtensions().put("x-aws-cruds-is-get", true);
+                                    break;
+                                case PUT:
+                                    operation.getVendorExtensions().put("x-aws-cruds-is-put", true);
+                                    break;
+                                case DELETE:
+                                    operation.getVendorExtensions().put("x-aws-cruds-is-delete", true);
+                                    break;
+                                case POST:
+                                    operation.getVendorExtensions().put("x-aws-cruds-is-post", true);
+                                    break;
+                                case PATCH:
+                                    operation.getVendorExtensions().put("x-aws-cruds-is-patch", true);
+                                    break;
+                            }
                         }
                     }
+                    bindPathModelType(operationMap);
+                    for (Operation operation : operationMap.values()) {
+                        bindItemWrite(swagger, operation);
+                    }
                 }
 
                 //Add a options method.
                 if (!optionsExists(operationMap)) {
                     //TODO: Check of cors option
                     Operation awsOptionsOperation = getOptionsOperation(tagForOption);
+                    if (report != null) {
+                        report.count("optionsOperations", 1);
+                    }
                     operationMap.put(HttpMethod.OPTIONS, awsOptionsOperation);
                     path.options(awsOptionsOperation);
                 }
             }
+            bindCacheInvalidation(swagger);
+            swagger.setVendorExtension("x-amazon-apigateway-request-validators", getRequestValidators());
+            if (compression) {
+                swagger.setVendorExtension("x-amazon-apigateway-minimum-compression-size", minimumCompressionSize);
+            }
         }
-    }
-
-    private Operation getOptionsOperation(String tag) {
-        Operation operation = new Operation();
-        operation.setConsumes(Arrays.asList("application/json"));
-        operation.setProduces(Arrays.asList("application/json"));
-        operation.setTags(Arrays.asList(tag));
-        operation.setVendorExtension("x-ignored", "true");
-
-        Response response = new Response();
-        response.setDescription("200 response for cors support");
-        RefProperty responseObjectProperty = new RefProperty();
-        responseObjectProperty.set$ref("#/definitions/Empty");
-        response.setSchema(responseObjectProperty);
-        response.setHeaders(
-                ImmutableMap.<String, Property>of("Access-Control-Allow-Origin", new StringProperty(),
-                        "Access-Control-Allow-Methods", new StringProperty(),
-                        "Access-Control-Allow-Headers", new StringProperty()));
-
-        XAmazonApigatewayIntegration xAmazonApigatewayIntegration = new XAmazonApigatewayIntegration();
-        Responses responses = new Responses();
-        Default defaultResponse = new Default();
-        defaultResponse.setStatusCode("200");
-        ResponseParameters responseParameters = new ResponseParameters();
-        responseParameters
-                .setMethodResponseHeaderAccessControlAllowHeaders("Content-Type,Authorization,X-Amz-Date,X-Api-Key,X-Amz-Security-Token");
-        responseParameters
-                .setMethodResponseHeaderAccessControlAllowMethods("DELETE,GET,HEAD,OPTIONS,PATCH,POST,PUT");
-        responseParameters.setMethodResponseHeaderAccessControlAllowOrigin("*");
-
-        RequestTemplates requestTemplates = new RequestTemplates();
-        requestTemplates.setApplicationJson("{\"statusCode\": 200}");
-
-        xAmazonApigatewayIntegration.setPassthroughBehavior("passthroughBehavior");
-        xAmazonApigatewayIntegration.setType("mock");
-
-        xAmazonApigatewayIntegration.setRequestTemplates(requestTemplates);
-        defaultResponse.setResponseParameters(responseParameters);
-        responses.setDefault(defaultResponse);
-
-        xAmazonApigatewayIntegration.setResponses(responses);
 
-        response.setVendorExtension("x-amazon-apigateway-integration", xAmazonApigatewayIntegration);
+        this.swagger = swagger;
+        if (incremental) {
+            manifest = new IncrementalManifest(new File(outputFolder), getOptionsHash());
+        }
+        exitPhase();
+    }
 
-        operation.setResponses(ImmutableMap.<String, Response>of("200", response));
+    /**
+     * Hash of everything besides the spec and the templates the generated files depend on.
+     */
+    private String getOptionsHash() {
+        Map<String, String> options = new TreeMap<String, String>();
+        for (Map.Entry<String, Object> entry : additionalProperties.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+                options.put(entry.getKey(), value.toString());
+            }
+        }
+        options.put("handlerMode", handlerMode);
+        options.put("bundleMode", bundleMode);
+        options.put("templateDir", templateDir());
+        options.put("apiTemplateFiles", apiTemplateFiles.toString());
+        return IncrementalManifest.hash(options.toString());
+    }
 
-        return operation;
+    /**
+     * Hash of a template and all the partials it includes, read the same way the generator reads them: from the
+     * template dir first, from the classpath otherwise.
+     */
+    private String getTemplateHash(String templateName) {
+        StringBuilder contents = new StringBuilder();
+        appendTemplate(templateName, contents, new HashSet<String>());
+        return IncrementalManifest.hash(contents.toString());
     }
 
-    private boolean optionsExists(Map<HttpMethod, Operation> operationMap) {
-        return operationMap.containsKey(HttpMethod.OPTIONS);
+    private void appendTemplate(String templateName, StringBuilder contents, Set<String> seen) {
+        if (!seen.add(templateName)) {
+            return;
+        }
+        String template = readTemplate(templateName);
+        contents.append(templateName).append('\n').append(template).append('\n');
+        Matcher partials = PARTIAL.matcher(template);
+        while (partials.find()) {
+            appendTemplate(partials.group(1) + ".mustache", contents, seen);
+        }
     }
 
-    @Override
-    public Map<String, Object> postProcessSupportingFileData(Map<String, Object> objs) {
-        Swagger swagger = (Swagger) objs.get("swagger");
-        if (swagger != null) {
+    private String readTemplate(String templateName) {
+        File file = new File(templateDir(), templateName);
+        try {
+            if (file.isFile()) {
+                return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+            }
+            InputStream in = getClass().getClassLoader().getResourceAsStream(embeddedTemplateDir() + "/" + templateName);
+            if (in == null) {
+                return "";
+            }
             try {
-                SimpleModule module = new SimpleModule();
-                module.addSerializer(Double.class, new JsonSerializer<Double>() {
-                    @Override
-                    public void serialize(Double val, JsonGenerator jgen,
-                                          SerializerProvider provider) throws IOException, JsonProcessingException {
-                        jgen.writeNumber(new BigDecimal(val));
-                    }
-                });
-                objs.put("swagger-yaml", Yaml.mapper().registerModule(module).writeValueAsString(swagger));
-            } catch (JsonProcessingException e) {
-                LOGGER.error(e.getMessage(), e);
+                return new Scanner(in, "UTF-8").useDelimiter("\\A").next();
+            } finally {
+                in.close();
             }
+        } catch (IOException e) {
+            LOGGER.warn("Could not read template " + templateName + ": " + e.getMessage());
+            return "";
+        } catch (NoSuchElementException e) {
+            return "";
         }
-        for (Map<String, Object> operations : getOperations(objs)) {
-            @SuppressWarnings("unchecked")
-            List<CodegenOperation> ops = (List<CodegenOperation>) operations.get("operation");
+    }
 
-            List<Map<String, Object>> opsByPathList = sortOperationsByPath(ops);
+    /**
+     * Supporting files only reading generator options depend on those options alone, all others are rendered
+     * from the whole spec.
+     */
+    private String getSupportingFileFragmentHash(String templateName, String specHash) {
+        StringBuilder contents = new StringBuilder();
+        appendTemplate(templateName, contents, new HashSet<String>());
+        Map<String, String> values = new TreeMap<String, String>();
+        Matcher variables = VARIABLE.matcher(contents);
+        while (variables.find()) {
+            String name = variables.group(1);
+            if (!additionalProperties.containsKey(name)) {
+                return specHash;
+            }
+            values.put(name, String.valueOf(additionalProperties.get(name)));
+        }
+        return IncrementalManifest.hash(values.toString());
+    }
+
+    @Override
+    public boolean shouldOverwrite(String filename) {
+        enterPhase("shouldOverwrite");
+        boolean overwrite;
+        if (manifest != null && manifest.isUpToDate(filename)) {
+            LOGGER.info("Unchanged " + filename);
+            overwrite = false;
+        } else {
+            overwrite = super.shouldOverwrite(filename) && (renderer == null || !renderer.submit(filename));
+        }
+        exitPhase();
+        if (overwrite && report != null) {
+            report.rendering(filename);
+        }
+        return overwrite;
+    }
+
+    @Override
+    public void processSwagger(Swagger swagger) {
+        enterPhase("processSwagger");
+        super.processSwagger(swagger);
+        enterPhase("writeSwaggerYaml");
+        writeSwaggerYaml(swagger);
+        exitPhase();
+        if (renderer != null) {
+            enterPhase("awaitRendering");
+            renderer.shutdown();
+            exitPhase();
+        }
+        if (manifest != null) {
+            enterPhase("incrementalManifest");
+            manifest.save();
+            exitPhase();
+        }
+        exitPhase();
+        if (report != null) {
+            report.save(new File(outputFolder, GenerationReport.FILENAME));
+        }
+    }
+
+    private String getSwaggerYamlFilename() {
+        return outputFolder + File.separator + "api" + File.separator + SWAGGER_YAML;
+    }
+
+    /**
+     * Writes the preprocessed spec to `api/swagger.yaml`.  It is streamed to the file instead of being rendered
+     * from a template, large specs never have to be held as a String.
+     */
+    private void writeSwaggerYaml(Swagger swagger) {
+        String selected = System.getProperty("supportingFiles");
+        if (selected == null ? System.getProperty("models") != null || System.getProperty("apis") != null
+                : !selected.isEmpty() && !Arrays.asList(selected.split(",")).contains(SWAGGER_YAML)) {
+            return;
+        }
+        File file = new File(getSwaggerYamlFilename());
+        if (file.exists() && !shouldOverwrite(file.getPath())) {
+            LOGGER.info("Skipped overwriting " + file);
+            return;
+        }
+        if (!new CodegenIgnoreProcessor(getOutputDir()).allowsFile(file)) {
+            LOGGER.info("Skipped generation of " + file + " due to rule in .swagger-codegen-ignore");
+            return;
+        }
+        try {
+            file.getParentFile().mkdirs();
+            SWAGGER_YAML_MAPPER.writeValue(file, swagger);
+            LOGGER.info("writing file " + file);
+            if (report != null) {
+                report.written(file.length());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not generate supporting file '" + file + "'", e);
+        }
+    }
+
+    private static ObjectMapper createSwaggerYamlMapper() {
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(Double.class, new JsonSerializer<Double>() {
+            @Override
+            public void serialize(Double val, JsonGenerator jgen,
+                                  SerializerProvider provider) throws IOException, JsonProcessingException {
+                jgen.writeNumber(new BigDecimal(val));
+            }
+        });
+        return Yaml.mapper().copy().registerModule(module);
+    }
+
+    /**
+     * Validates the `x-aws-cache: {ttlSeconds, maxEntries}` extension of a GET operation and fills in the
+     * defaults.  Only operations reading a single item by its id path parameter are cached.
+     */
+    @SuppressWarnings("unchecked")
+    private void bindCache(Operation operation) {
+        Object cache = operation.getVendorExtensions().get("x-aws-cache");
+        if (cache == null) {
+            return;
+        }
+        boolean hasPathParam = false;
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                hasPathParam |= parameter instanceof PathParameter;
+            }
+        }
+        if (!hasPathParam || !(cache instanceof Map)) {
+            LOGGER.warn("x-aws-cache of " + operation.getOperationId()
+                    + " is only supported as a map on GET operations by id, ignoring it.");
+            operation.getVendorExtensions().remove("x-aws-cache");
+            return;
+        }
+        Map<String, Object> options = new HashMap<String, Object>((Map<String, Object>) cache);
+        if (options.get("ttlSeconds") == null) {
+            options.put("ttlSeconds", 60);
+        }
+        if (options.get("maxEntries") == null) {
+            options.put("maxEntries", 1000);
+        }
+        operation.getVendorExtensions().put("x-aws-cache", options);
+        addSupportingFile("cache.mustache", "utils", "cache.js");
+    }
+
+    /**
+     * Marks the write operations on models that some GET operation caches, so their services drop the
+     * written keys from the cache.  The options of the caches go to utils/cache.js, so a model's cache is configured
+     * the same whether a read or a write creates it.
+     */
+    @SuppressWarnings("unchecked")
+    private void bindCacheInvalidation(Swagger swagger) {
+        Map<Object, Map<String, Object>> cachedModels = new LinkedHashMap<Object, Map<String, Object>>();
+        for (Path path : swagger.getPaths().values()) {
+            for (Operation operation : path.getOperations()) {
+                Map<String, Object> options = (Map<String, Object>) operation.getVendorExtensions().get("x-aws-cache");
+                if (options == null) {
+                    continue;
+                }
+                Object modelType = operation.getVendorExtensions().get("x-aws-cruds-model-type");
+                Map<String, Object> cachedModel = cachedModels.get(modelType);
+                if (cachedModel == null) {
+                    cachedModel = new HashMap<String, Object>(options);
+                    cachedModel.put("modelName", modelType);
+                    cachedModels.put(modelType, cachedModel);
+                } else if (!cachedModel.get("ttlSeconds").equals(options.get("ttlSeconds"))
+                        || !cachedModel.get("maxEntries").equals(options.get("maxEntries"))) {
+                    LOGGER.warn("x-aws-cache of " + operation.getOperationId() + " differs from an earlier one of model "
+                            + modelType + ", the model has one cache with the options of the first.");
+                }
+            }
+        }
+        if (cachedModels.isEmpty()) {
+            return;
+        }
+        additionalProperties.put("cachedModels", new ArrayList<Map<String, Object>>(cachedModels.values()));
+        Set<Object> cachedModelTypes = cachedModels.keySet();
+        for (Path path : swagger.getPaths().values()) {
+            for (Operation operation : path.getOperations()) {
+                Map<String, Object> extensions = operation.getVendorExtensions();
+                boolean write = extensions.get("x-aws-cruds-is-put") != null || extensions.get("x-aws-cruds-is-post") != null
+                        || extensions.get("x-aws-cruds-is-patch") != null || extensions.get("x-aws-cruds-is-delete") != null
+                        || extensions.get("x-aws-batch-write") != null;
+                if (write && cachedModelTypes.contains(extensions.get("x-aws-cruds-model-type"))) {
+                    extensions.put("x-aws-cache-invalidate", true);
+                    if (extensions.get("x-aws-dynamo-hash-key") == null) {
+                        extensions.put("x-aws-dynamo-hash-key",
+                                getHashKey(swagger, extensions.get("x-aws-cruds-model-type").toString()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Validates the `x-aws-parallel-scan: <segments>` extension of a GET operation.  Such operations read the
+     * whole table with a segmented scan, so they are neither paginated nor turned into queries.
+     */
+    private boolean bindParallelScan(Operation operation) {
+        Object segments = operation.getVendorExtensions().get("x-aws-parallel-scan");
+        if (segments == null) {
+            return false;
+        }
+        try {
+            int totalSegments = Integer.parseInt(segments.toString());
+            if (totalSegments < 1) {
+                throw new NumberFormatException();
+            }
+            operation.getVendorExtensions().put("x-aws-parallel-scan", totalSegments);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("x-aws-parallel-scan of " + operation.getOperationId() + " is not a positive number of segments: "
+                    + segments + ", ignoring it.");
+            operation.getVendorExtensions().remove("x-aws-parallel-scan");
+            return false;
+        }
+        operation.getVendorExtensions().put("x-aws-dynamo-scan", true);
+        addSupportingFile("dynamodb.mustache", "utils", "dynamodb.js");
+        addSupportingFile("scan.mustache", "utils", "scan.js");
+        return true;
+    }
+
+    private void addSupportingFile(String templateFile, String folder, String destinationFilename) {
+        for (SupportingFile supportingFile : supportingFiles) {
+            if (supportingFile.templateFile.equals(templateFile)) {
+                return;
+            }
+        }
+        supportingFiles.add(new SupportingFile(templateFile, folder, destinationFilename));
+    }
+
+    /**
+     * Adds `POST {path}/batch-get` and `POST {path}/batch-write` operations for every path marked with
+     * `x-aws-batch: true`.  The model of the path is taken from its GET response or its write operations.
+     */
+    private void addBatchOperations(Swagger swagger) {
+        if (swagger.getPaths() == null) {
+            return;
+        }
+        Map<String, Path> batchPaths = new LinkedHashMap<String, Path>();
+        for (Map.Entry<String, Path> entry : swagger.getPaths().entrySet()) {
+            Path path = entry.getValue();
+            Object batch = path.getVendorExtensions().get("x-aws-batch");
+            if (batch == null || !Boolean.parseBoolean(batch.toString())) {
+                continue;
+            }
+            String modelType = null;
+            List<String> tags = null;
+            for (Operation operation : path.getOperations()) {
+                if (tags == null) {
+                    tags = operation.getTags();
+                }
+                if (modelType == null) {
+                    modelType = getResponseModelType(operation);
+                }
+                if (modelType == null) {
+                    modelType = getWriteModelType(operation);
+                }
+            }
+            if (modelType == null) {
+                LOGGER.warn("Path " + entry.getKey() + " is marked with x-aws-batch but has no model, skipping batch operations.");
+                continue;
+            }
+            String hashKey = getHashKey(swagger, modelType);
+
+            BodyParameter keys = new BodyParameter()
+                    .name("body")
+                    .description("Values of the " + hashKey + " of the " + modelType + " items to get")
+                    .schema(new ArrayModel().items(getHashKeyProperty(swagger, modelType, hashKey)));
+            keys.setRequired(true);
+            Operation batchGet = getBatchOperation("batchGet" + modelType, tags, modelType, hashKey, keys,
+                    new ArrayProperty(new RefProperty(modelType)));
+            batchGet.setVendorExtension("x-aws-batch-get", true);
+            batchPaths.put(entry.getKey() + "/batch-get", new Path().post(batchGet));
+
+            BodyParameter items = new BodyParameter()
+                    .name("body")
+                    .description(modelType + " items to put")
+                    .schema(new ArrayModel().items(new RefProperty(modelType)));
+            items.setRequired(true);
+            Operation batchWrite = getBatchOperation("batchWrite" + modelType, tags, modelType, hashKey, items, null);
+            batchWrite.setVendorExtension("x-aws-batch-write", true);
+            batchPaths.put(entry.getKey() + "/batch-write", new Path().post(batchWrite));
+        }
+        for (Map.Entry<String, Path> entry : batchPaths.entrySet()) {
+            if (swagger.getPaths().containsKey(entry.getKey())) {
+                LOGGER.warn("Path " + entry.getKey() + " already exists, not adding the batch operation.");
+                continue;
+            }
+            swagger.path(entry.getKey(), entry.getValue());
+        }
+        if (!batchPaths.isEmpty()) {
+            addSupportingFile("dynamodb.mustache", "utils", "dynamodb.js");
+            addSupportingFile("batch.mustache", "utils", "batch.js");
+        }
+    }
+
+    /**
+     * Adds a `PATCH` operation next to every `PUT` operation that replaces a model by its id path parameter.  Its
+     * body is the same model, but only the attributes it contains are written and none of them is required.
+     */
+    private void addPatchOperations(Swagger swagger) {
+        if (swagger.getPaths() == null) {
+            return;
+        }
+        for (Map.Entry<String, Path> entry : swagger.getPaths().entrySet()) {
+            Path path = entry.getValue();
+            Operation put = path.getPut();
+            if (put == null || path.getPatch() != null || put.getParameters() == null) {
+                continue;
+            }
+            BodyParameter body = null;
+            boolean hasPathParam = false;
+            for (Parameter parameter : put.getParameters()) {
+                hasPathParam |= parameter instanceof PathParameter;
+                if (parameter instanceof BodyParameter && ((BodyParameter) parameter).getSchema() instanceof RefModel) {
+                    body = (BodyParameter) parameter;
+                }
+            }
+            if (body == null || !hasPathParam) {
+                continue;
+            }
+            String modelType = ((RefModel) body.getSchema()).getSimpleRef();
+            Operation patch = new Operation();
+            patch.setOperationId("patch" + modelType);
+            patch.setTags(put.getTags());
+            patch.setSummary("Changes the given attributes of a " + modelType);
+            patch.setConsumes(put.getConsumes());
+            patch.setProduces(put.getProduces());
+            for (Parameter parameter : put.getParameters()) {
+                if (parameter == body) {
+                    BodyParameter attributes = new BodyParameter()
+                            .name(body.getName())
+                            .description("Attributes of the " + modelType + " to change, null removes an attribute")
+                            .schema(body.getSchema());
+                    attributes.setRequired(true);
+                    patch.addParameter(attributes);
+                } else {
+                    patch.addParameter(parameter);
+                }
+            }
+            patch.setResponses(put.getResponses());
+            patch.setVendorExtension("x-aws-patch", true);
+            path.setPatch(patch);
+        }
+    }
+
+    /**
+     * Validates the `x-aws-version-attribute: <property>` extension of the models.  Writes of such a model
+     * increment the number in that attribute and fail when the written body carries another version than the
+     * stored item.
+     */
+    private void bindVersionAttributes(Swagger swagger) {
+        if (swagger.getDefinitions() == null) {
+            return;
+        }
+        for (Map.Entry<String, Model> entry : swagger.getDefinitions().entrySet()) {
+            Map<String, Object> extensions = entry.getValue().getVendorExtensions();
+            Object attribute = extensions == null ? null : extensions.get("x-aws-version-attribute");
+            if (attribute == null) {
+                continue;
+            }
+            Property property = entry.getValue().getProperties() == null ? null
+                    : entry.getValue().getProperties().get(attribute.toString());
+            if (!(property instanceof AbstractNumericProperty)) {
+                LOGGER.warn("x-aws-version-attribute of " + entry.getKey() + " is not a number property: " + attribute
+                        + ", ignoring it.");
+                extensions.remove("x-aws-version-attribute");
+            }
+        }
+    }
+
+    /**
+     * Marks the single item writes.  `PUT` and `PATCH` become an UpdateItem of the attributes in the body,
+     * `DELETE` a DeleteItem, both by the hash key of their model.
+     */
+    private void bindItemWrite(Swagger swagger, Operation operation) {
+        Map<String, Object> extensions = operation.getVendorExtensions();
+        Object modelType = extensions.get("x-aws-cruds-model-type");
+        boolean update = extensions.get("x-aws-cruds-is-put") != null || extensions.get("x-aws-cruds-is-patch") != null;
+        boolean write = update || extensions.get("x-aws-cruds-is-post") != null
+                || extensions.get("x-aws-cruds-is-delete") != null;
+        if (!write || modelType == null) {
+            return;
+        }
+        Model model = swagger.getDefinitions() != null ? swagger.getDefinitions().get(modelType.toString()) : null;
+        Object versionAttribute = model == null || model.getVendorExtensions() == null ? null
+                : model.getVendorExtensions().get("x-aws-version-attribute");
+        if (versionAttribute != null) {
+            extensions.put("x-aws-version-attribute", versionAttribute);
+        }
+        if (update) {
+            extensions.put("x-aws-cruds-is-update", true);
+        }
+        extensions.put("x-aws-dynamo-hash-key", getHashKey(swagger, modelType.toString()));
+        if (extensions.get("x-aws-cruds-is-post") == null) {
+            extensions.put("x-aws-item-write", true);
+            addSupportingFile("dynamodb.mustache", "utils", "dynamodb.js");
+            addSupportingFile("item.mustache", "utils", "item.js");
+        }
+    }
+
+    private Operation getBatchOperation(String operationId, List<String> tags, String modelType, String hashKey,
+                                        BodyParameter body, Property responseSchema) {
+        Operation operation = new Operation();
+        operation.setOperationId(operationId);
+        operation.setConsumes(Arrays.asList("application/json"));
+        operation.setProduces(Arrays.asList("application/json"));
+        if (tags != null) {
+            operation.setTags(tags);
+        }
+        operation.addParameter(body);
+        Response response = new Response();
+        response.setDescription("200 response");
+        response.setSchema(responseSchema);
+        operation.setResponses(ImmutableMap.<String, Response>of("200", response));
+        operation.setVendorExtension("x-aws-batch-operation", true);
+        operation.setVendorExtension("x-aws-cruds-model-type", modelType);
+        operation.setVendorExtension("x-aws-dynamo-hash-key", hashKey);
+        return operation;
+    }
+
+    /**
+     * Schema of the values of the hash key of a model, so batch gets validate them like the key of the model.
+     * Strings when the model does not declare the key.
+     */
+    private static Property getHashKeyProperty(Swagger swagger, String modelType, String hashKey) {
+        Model model = swagger.getDefinitions() != null ? swagger.getDefinitions().get(modelType) : null;
+        Property key = model != null && model.getProperties() != null ? model.getProperties().get(hashKey) : null;
+        Property property = key != null ? PropertyBuilder.build(key.getType(), key.getFormat(), null) : null;
+        return property != null ? property : new StringProperty();
+    }
+
+    private String getHashKey(Swagger swagger, String modelType) {
+        Model model = swagger.getDefinitions() != null ? swagger.getDefinitions().get(modelType) : null;
+        if (model != null && model.getProperties() != null) {
+            for (Map.Entry<String, Property> entry : model.getProperties().entrySet()) {
+                if (entry.getValue().getVendorExtensions() != null
+                        && entry.getValue().getVendorExtensions().get("x-dynamo-hashkey") != null) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return "id";
+    }
+
+    private String getResponseModelType(Operation operation) {
+        if (operation.getResponses() == null || operation.getResponses().get("200") == null) {
+            return null;
+        }
+        Property property = operation.getResponses().get("200").getSchema();
+        if (property instanceof ArrayProperty) {
+            property = ((ArrayProperty) property).getItems();
+        }
+        return property instanceof RefProperty ? ((RefProperty) property).getSimpleRef() : null;
+    }
+
+    /**
+     * Binds `x-aws-cruds-model-type` on the operations of a path that do not have one yet, from their body
+     * or 200 response model, falling back to the model of the other operations on the same path.
+     */
+    private void bindPathModelType(Map<HttpMethod, Operation> operationMap) {
+        String pathModelType = null;
+        for (Operation operation : operationMap.values()) {
+            Object type = operation.getVendorExtensions().get("x-aws-cruds-model-type");
+            if (type == null) {
+                type = getWriteModelType(operation);
+                if (type != null) {
+                    operation.getVendorExtensions().put("x-aws-cruds-model-type", type);
+                }
+            }
+            if (pathModelType == null && type != null) {
+                pathModelType = type.toString();
+            }
+        }
+        if (pathModelType == null) {
+            return;
+        }
+        for (Operation operation : operationMap.values()) {
+            if (operation.getVendorExtensions().get("x-aws-cruds-model-type") == null) {
+                operation.getVendorExtensions().put("x-aws-cruds-model-type", pathModelType);
+            }
+        }
+    }
+
+    private String getWriteModelType(Operation operation) {
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if (parameter instanceof BodyParameter && ((BodyParameter) parameter).getSchema() instanceof RefModel) {
+                    return ((RefModel) ((BodyParameter) parameter).getSchema()).getSimpleRef();
+                }
+            }
+        }
+        if (operation.getResponses() != null) {
+            Response okResponse = operation.getResponses().get("200");
+            if (okResponse != null && okResponse.getSchema() instanceof RefProperty) {
+                return ((RefProperty) okResponse.getSchema()).getSimpleRef();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the query parameter of a GET operation that can be answered with a DynamoDB Query rather than
+     * a full table Scan.  A parameter qualifies when the response model has a property of the same name
+     * carrying the `x-dynamo-hashkey` or `x-dynamo-index` vendor extension; the table hash key wins over
+     * a global secondary index.  Operations that are left with a scan, always or when an optional key parameter is
+     * missing, are reported at generation time.  Operations with path parameters read a single item by its key.
+     */
+    @SuppressWarnings("unchecked")
+    private void bindDynamoQueryKey(Swagger swagger, String pathname, Operation operation, String modelType) {
+        List<QueryParameter> queryParams = new ArrayList<QueryParameter>();
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if (parameter instanceof PathParameter) {
+                    return;
+                }
+                if (parameter instanceof QueryParameter) {
+                    queryParams.add((QueryParameter) parameter);
+                }
+            }
+        }
+        for (Iterator<QueryParameter> it = queryParams.iterator(); it.hasNext(); ) {
+            Map<String, Object> extensions = it.next().getVendorExtensions();
+            if (extensions.get("x-aws-pagination-param") != null || extensions.get("x-aws-projection-param") != null) {
+                it.remove();
+            }
+        }
+
+        Model model = swagger.getDefinitions() != null ? swagger.getDefinitions().get(modelType) : null;
+        Map<String, Property> properties = model != null ? model.getProperties() : null;
+
+        QueryParameter keyParam = null;
+        String indexName = null;
+        if (properties != null) {
+            for (QueryParameter queryParam : queryParams) {
+                Property property = properties.get(queryParam.getName());
+                if (property == null || property.getVendorExtensions() == null) {
+                    continue;
+                }
+                if (property.getVendorExtensions().get("x-dynamo-hashkey") != null) {
+                    keyParam = queryParam;
+                    indexName = null;
+                    break;
+                }
+                Object index = property.getVendorExtensions().get("x-dynamo-index");
+                if (index != null && keyParam == null) {
+                    keyParam = queryParam;
+                    Object name = index instanceof Map ? ((Map<String, Object>) index).get("name") : null;
+                    indexName = name != null ? name.toString() : queryParam.getName() + "GlobalIndex";
+                }
+            }
+        }
+
+        if (keyParam == null) {
+            LOGGER.warn("No hash key or index of model " + modelType + " matches the query parameters of "
+                    + operation.getOperationId() + " (GET " + pathname + "), generating a full table scan.");
+            operation.getVendorExtensions().put("x-aws-dynamo-scan", true);
+            return;
+        }
+        if (!keyParam.getRequired()) {
+            LOGGER.warn(operation.getOperationId() + " (GET " + pathname + ") queries model " + modelType + " by "
+                    + keyParam.getName() + ", but generates a full table scan when that optional query parameter"
+                    + " is missing.");
+        }
+        keyParam.getVendorExtensions().put("x-aws-dynamo-key", true);
+        operation.getVendorExtensions().put("x-aws-dynamo-query-key", keyParam.getName());
+        if (indexName != null) {
+            keyParam.getVendorExtensions().put("x-aws-dynamo-key-index", indexName);
+            operation.getVendorExtensions().put("x-aws-dynamo-query-index", indexName);
+        }
+    }
+
+    /**
+     * Adds the `limit` and `cursor` query parameters and the next-cursor response header to a GET operation
+     * returning an array.  The cursor is the base64 encoded `LastEvaluatedKey` of the previous page.
+     */
+    private void addPaginationParameters(Operation operation, Response okResponse) {
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if (parameter instanceof QueryParameter
+                        && ("limit".equals(parameter.getName()) || "cursor".equals(parameter.getName()))) {
+                    LOGGER.warn("Operation " + operation.getOperationId()
+                            + " already has a limit or cursor query parameter, not adding pagination.");
+                    return;
+                }
+            }
+        }
+        QueryParameter limit = new QueryParameter()
+                .name("limit")
+                .type("integer")
+                .format("int32")
+                .description("Maximum number of items to return, at most " + maxPageSize);
+        limit.setMinimum(BigDecimal.ONE);
+        limit.setMaximum(new BigDecimal(maxPageSize));
+        limit.setVendorExtension("x-aws-pagination-param", true);
+        operation.addParameter(limit);
+
+        QueryParameter cursor = new QueryParameter()
+                .name("cursor")
+                .type("string")
+                .description("Opaque cursor returned in the " + NEXT_CURSOR_HEADER + " header of the previous page");
+        cursor.setVendorExtension("x-aws-pagination-param", true);
+        operation.addParameter(cursor);
+
+        StringProperty nextCursor = new StringProperty();
+        nextCursor.setDescription("Cursor of the next page, absent on the last page");
+        okResponse.addHeader(NEXT_CURSOR_HEADER, nextCursor);
+        operation.getVendorExtensions().put("x-aws-paginated", true);
+    }
+
+    /**
+     * Makes a GET operation conditional.  Its 200 response gets an `ETag` header, the version of items of models
+     * with `x-aws-version-attribute`, together with the normalized `fields` projection if the operation has one, or
+     * else a hash of the body, and requests with a matching `If-None-Match` header are answered with an empty `304`.
+     */
+    private void bindETag(Swagger swagger, Operation operation, Response okResponse, String modelType, boolean single) {
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if (parameter instanceof HeaderParameter && IF_NONE_MATCH_HEADER.equalsIgnoreCase(parameter.getName())) {
+                    LOGGER.warn("Operation " + operation.getOperationId()
+                            + " already has an If-None-Match header parameter, not adding ETags.");
+                    return;
+                }
+            }
+        }
+        HeaderParameter ifNoneMatch = new HeaderParameter()
+                .name(IF_NONE_MATCH_HEADER)
+                .type("string")
+                .description("ETag of the response the client has, answered with 304 when it is still current");
+        ifNoneMatch.setVendorExtension("x-aws-etag-param", true);
+        operation.addParameter(ifNoneMatch);
+
+        StringProperty etag = new StringProperty();
+        etag.setDescription("Version of the response for If-None-Match");
+        okResponse.addHeader("ETag", etag);
+        Response notModified = new Response();
+        notModified.setDescription("Not modified, the ETag of If-None-Match is still current");
+        operation.response(304, notModified);
+
+        operation.getVendorExtensions().put("x-aws-etag", true);
+        Model model = swagger.getDefinitions() != null ? swagger.getDefinitions().get(modelType) : null;
+        if (single && model != null && model.getVendorExtensions() != null
+                && model.getVendorExtensions().get("x-aws-version-attribute") != null) {
+            operation.getVendorExtensions().put("x-aws-version-attribute",
+                    model.getVendorExtensions().get("x-aws-version-attribute"));
+            if (operation.getVendorExtensions().get("x-aws-projection") != null) {
+                // the version alone would give every projection of the item the same tag.
+                operation.getVendorExtensions().put("x-aws-etag-projection", true);
+                etag.setDescription("Version of the response and the fields it was read with, for If-None-Match");
+            }
+        }
+        addSupportingFile("etag.mustache", "utils", "etag.js");
+    }
+
+    /**
+     * Adds the `fields` query parameter of a GET operation marked with `x-aws-projection: true`.  It takes a comma
+     * separated list of attributes of the model, which is read with a projection of those attributes.
+     */
+    private void bindProjection(Swagger swagger, Operation operation, String modelType) {
+        Object projection = operation.getVendorExtensions().get("x-aws-projection");
+        if (projection == null) {
+            return;
+        }
+        operation.getVendorExtensions().remove("x-aws-projection");
+        if (!Boolean.parseBoolean(projection.toString())) {
+            return;
+        }
+        Model model = swagger.getDefinitions() != null ? swagger.getDefinitions().get(modelType) : null;
+        if (model == null || model.getProperties() == null || model.getProperties().isEmpty()) {
+            LOGGER.warn("x-aws-projection of " + operation.getOperationId() + " needs a model with properties, ignoring it.");
+            return;
+        }
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if (parameter instanceof QueryParameter && "fields".equals(parameter.getName())) {
+                    LOGGER.warn("Operation " + operation.getOperationId()
+                            + " already has a fields query parameter, not adding a projection.");
+                    return;
+                }
+            }
+        }
+        StringProperty attribute = new StringProperty();
+        attribute.setEnum(new ArrayList<String>(model.getProperties().keySet()));
+        QueryParameter fields = new QueryParameter()
+                .name("fields")
+                .type("array")
+                .items(attribute)
+                .collectionFormat("csv")
+                .description("Comma separated attributes of " + modelType + " to return, all by default");
+        fields.setVendorExtension("x-aws-projection-param", true);
+        operation.addParameter(fields);
+        operation.getVendorExtensions().put("x-aws-projection", true);
+        addSupportingFile("projection.mustache", "utils", "projection.js");
+    }
+
+    /**
+     * Caches a GET operation in the API Gateway stage cache for `x-aws-gateway-cache: {ttl}` seconds, or
+     * `gatewayCacheTtl` when it has no extension.  The path, query and header parameters of the operation become the
+     * `cacheKeyParameters` of its integration, operations without an integration get the Lambda proxy integration of
+     * the project function.  The TTLs are stage settings and written to `api/gateway-cache.json`.
+     */
+    @SuppressWarnings("unchecked")
+    private void bindGatewayCache(String pathname, HttpMethod method, Operation operation) {
+        Object cache = operation.getVendorExtensions().get("x-aws-gateway-cache");
+        int ttl = gatewayCacheTtl;
+        if (cache != null) {
+            Object value = cache instanceof Map ? ((Map<String, Object>) cache).get("ttl") : null;
+            try {
+                ttl = value == null ? 300 : Integer.parseInt(value.toString());
+                if (ttl < 0 || ttl > 3600) {
+                    throw new NumberFormatException();
+                }
+            } catch (NumberFormatException e) {
+                ttl = -1;
+            }
+            if (!method.equals(HttpMethod.GET) || !(cache instanceof Map) || ttl < 0) {
+                LOGGER.warn("x-aws-gateway-cache of " + operation.getOperationId()
+                        + " is only supported as {ttl: <0-3600 seconds>} on GET operations, ignoring it.");
+                operation.getVendorExtensions().remove("x-aws-gateway-cache");
+                return;
+            }
+        }
+        if (!method.equals(HttpMethod.GET) || ttl == 0) {
+            return;
+        }
+        List<String> keys = new ArrayList<String>();
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if ("path".equals(parameter.getIn()) || "header".equals(parameter.getIn())) {
+                    keys.add("method.request." + parameter.getIn() + "." + parameter.getName());
+                } else if ("query".equals(parameter.getIn())) {
+                    keys.add("method.request.querystring." + parameter.getName());
+                }
+            }
+        }
+        Object integration = operation.getVendorExtensions().get("x-amazon-apigateway-integration");
+        if (integration == null) {
+            integration = getLambdaProxyIntegration(projectName);
+            operation.setVendorExtension("x-amazon-apigateway-integration", integration);
+        }
+        if (integration instanceof XAmazonApigatewayIntegration) {
+            ((XAmazonApigatewayIntegration) integration).setCacheKeyParameters(keys);
+        } else if (integration instanceof Map) {
+            ((Map<String, Object>) integration).put("cacheKeyParameters", keys);
+        }
+        Map<String, Object> setting = new LinkedHashMap<String, Object>();
+        // resource paths are escaped as JSON pointers in stage method settings.
+        setting.put("resource", pathname.replace("~", "~0").replace("/", "~1"));
+        setting.put("method", method.name());
+        setting.put("ttl", ttl);
+        gatewayCacheSettings.add(setting);
+        addSupportingFile("gateway-cache.mustache", "api", "gateway-cache.json");
+    }
+
+    /**
+     * The `aws apigateway update-stage --patch-operations` turning on the stage cache and the TTLs of the cached
+     * operations.
+     */
+    private List<Map<String, Object>> getGatewayCachePatch() {
+        List<Map<String, Object>> patch = new ArrayList<Map<String, Object>>();
+        patch.add(getPatchOperation("/cacheClusterEnabled", "true"));
+        patch.add(getPatchOperation("/cacheClusterSize", "0.5"));
+        for (Map<String, Object> setting : gatewayCacheSettings) {
+            String prefix = "/" + setting.get("resource") + "/" + setting.get("method") + "/caching/";
+            patch.add(getPatchOperation(prefix + "enabled", "true"));
+            patch.add(getPatchOperation(prefix + "ttlInSeconds", setting.get("ttl").toString()));
+        }
+        return patch;
+    }
+
+    private static Map<String, Object> getPatchOperation(String path, String value) {
+        Map<String, Object> operation = new LinkedHashMap<String, Object>();
+        operation.put("op", "replace");
+        operation.put("path", path);
+        operation.put("value", value);
+        return operation;
+    }
+
+    private XAmazonApigatewayIntegration getLambdaProxyIntegration(String functionName) {
+        XAmazonApigatewayIntegration xAmazonApigatewayIntegration = new XAmazonApigatewayIntegration();
+        xAmazonApigatewayIntegration.setType("aws_proxy");
+        // lambda functions are always invoked with POST, whatever the method of the api operation.
+        xAmazonApigatewayIntegration.setHttpMethod("POST");
+        xAmazonApigatewayIntegration.setPassthroughBehavior("when_no_match");
+        xAmazonApigatewayIntegration.setUri("arn:aws:apigateway:${AWS::Region}:lambda:path/2015-03-31/functions/"
+                + "arn:aws:lambda:${AWS::Region}:${AWS::AccountId}:function:" + functionName + "/invocations");
+        return xAmazonApigatewayIntegration;
+    }
+
+    /**
+     * The API Gateway request validators referenced by `x-amazon-apigateway-request-validator`.  API Gateway
+     * rejects requests with missing parameters or a body not matching its model before Lambda is invoked.
+     */
+    private static Map<String, Object> getRequestValidators() {
+        Map<String, Object> validators = new LinkedHashMap<String, Object>();
+        validators.put("params-and-body", getRequestValidator(true));
+        validators.put("params-only", getRequestValidator(false));
+        return validators;
+    }
+
+    private static Map<String, Object> getRequestValidator(boolean body) {
+        Map<String, Object> validator = new LinkedHashMap<String, Object>();
+        validator.put("validateRequestBody", body);
+        validator.put("validateRequestParameters", true);
+        return validator;
+    }
+
+    private static void bindRequestValidator(Operation operation) {
+        if (operation.getParameters() == null || operation.getParameters().isEmpty()) {
+            return;
+        }
+        boolean body = false;
+        for (Parameter parameter : operation.getParameters()) {
+            body |= parameter instanceof BodyParameter;
+        }
+        // the model of a partial update has required properties the body does not need to have.
+        body &= operation.getVendorExtensions().get("x-aws-patch") == null;
+        operation.setVendorExtension("x-amazon-apigateway-request-validator", body ? "params-and-body" : "params-only");
+    }
+
+    private Operation getOptionsOperation(String tag) {
+        Operation operation = new Operation();
+        operation.setConsumes(Arrays.asList("application/json"));
+        operation.setProduces(Arrays.asList("application/json"));
+        operation.setTags(Arrays.asList(tag));
+        operation.setVendorExtension("x-ignored", "true");
+
+        Response response = new Response();
+        response.setDescription("200 response for cors support");
+        RefProperty responseObjectProperty = new RefProperty();
+        responseObjectProperty.set$ref("#/definitions/Empty");
+        response.setSchema(responseObjectProperty);
+        response.setHeaders(
+                ImmutableMap.<String, Property>of("Access-Control-Allow-Origin", new StringProperty(),
+                        "Access-Control-Allow-Methods", new StringProperty(),
+                        "Access-Control-Allow-Headers", new StringProperty()));
+
+        XAmazonApigatewayIntegration xAmazonApigatewayIntegration = new XAmazonApigatewayIntegration();
+        Responses responses = new Responses();
+        Default defaultResponse = new Default();
+        defaultResponse.setStatusCode("200");
+        ResponseParameters responseParameters = new ResponseParameters();
+        responseParameters
+                .setMethodResponseHeaderAccessControlAllowHeaders("Content-Type,Authorization,X-Amz-Date,X-Api-Key,X-Amz-Security-Token,If-None-Match");
+        responseParameters
+                .setMethodResponseHeaderAccessControlAllowMethods("DELETE,GET,HEAD,OPTIONS,PATCH,POST,PUT");
+        responseParameters.setMethodResponseHeaderAccessControlAllowOrigin("*");
+
+        RequestTemplates requestTemplates = new RequestTemplates();
+        requestTemplates.setApplicationJson("{\"statusCode\": 200}");
+
+        xAmazonApigatewayIntegration.setPassthroughBehavior("passthroughBehavior");
+        xAmazonApigatewayIntegration.setType("mock");
+
+        xAmazonApigatewayIntegration.setRequestTemplates(requestTemplates);
+        defaultResponse.setResponseParameters(responseParameters);
+        responses.setDefault(defaultResponse);
+
+        xAmazonApigatewayIntegration.setResponses(responses);
+
+        response.setVendorExtension("x-amazon-apigateway-integration", xAmazonApigatewayIntegration);
+
+        operation.setResponses(ImmutableMap.<String, Response>of("200", response));
+
+        return operation;
+    }
+
+    private boolean optionsExists(Map<HttpMethod, Operation> operationMap) {
+        return operationMap.containsKey(HttpMethod.OPTIONS);
+    }
+
+    @Override
+    public Map<String, Object> postProcessSupportingFileData(Map<String, Object> objs) {
+        if (renderer != null) {
+            // the operations are modified below, the api and model files have to be written before.
+            enterPhase("awaitRendering");
+            renderer.await();
+            exitPhase();
+        }
+        enterPhase("postProcessSupportingFileData");
+        if (report != null) {
+            for (SupportingFile file : supportingFiles) {
+                String folder = file.folder == null ? "" : file.folder.replace('/', File.separatorChar);
+                report.expect(outputFolder + File.separator + folder + File.separator + file.destinationFilename,
+                        file.templateFile, null);
+            }
+        }
+        for (Map<String, Object> operations : getOperations(objs)) {
+            @SuppressWarnings("unchecked")
+            List<CodegenOperation> ops = (List<CodegenOperation>) operations.get("operation");
+
+            List<Map<String, Object>> opsByPathList = sortOperationsByPath(ops);
             operations.put("operationsByPath", opsByPathList);
         }
-        return super.postProcessSupportingFileData(objs);
+        RouteTableCompiler router = compileRoutes(objs);
+        try {
+            objs.put("router-tree", Json.mapper().writeValueAsString(router.tree()));
+            objs.put("router-routes", Json.mapper().writeValueAsString(router.routes()));
+        } catch (JsonProcessingException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        if (manifest != null) {
+            String specHash = IncrementalManifest.hashJson(HASH_MAPPER, swagger);
+            for (SupportingFile file : supportingFiles) {
+                String folder = file.folder == null ? "" : file.folder.replace('/', File.separatorChar);
+                String filename = outputFolder + File.separator + folder + File.separator + file.destinationFilename;
+                manifest.track("supportingFiles", filename, getSupportingFileFragmentHash(file.templateFile, specHash),
+                        getTemplateHash(file.templateFile));
+            }
+            manifest.track("supportingFiles", getSwaggerYamlFilename(), specHash, IncrementalManifest.hash(SWAGGER_YAML));
+        }
+        if ("operation".equals(bundleMode)) {
+            try {
+                objs.put("bundles-json", Json.pretty().writeValueAsString(getBundles(objs)));
+            } catch (JsonProcessingException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        }
+        for (Map<String, Object> api : getApis(objs)) {
+            if (api.containsKey("hasETagOperations")) {
+                // routes.js answers the conditional GETs of all tags.
+                objs.put("hasETagOperations", true);
+            }
+        }
+        if (!gatewayCacheSettings.isEmpty()) {
+            try {
+                objs.put("gateway-cache-json", Json.pretty().writeValueAsString(getGatewayCachePatch()));
+            } catch (JsonProcessingException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        }
+        if (loadTest) {
+            try {
+                objs.put("loadtest-events-json", Json.pretty().writeValueAsString(getLoadTestEvents(objs)));
+            } catch (JsonProcessingException e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+        }
+        objs = super.postProcessSupportingFileData(objs);
+        exitPhase();
+        return objs;
+    }
+
+    /**
+     * Compiles the paths of all operations, grouped by path by {@link #sortOperationsByPath(List)}, into the radix
+     * tree of router.js.
+     */
+    @SuppressWarnings("unchecked")
+    private RouteTableCompiler compileRoutes(Map<String, Object> objs) {
+        RouteTableCompiler router = new RouteTableCompiler();
+        for (Map<String, Object> operations : getOperations(objs)) {
+            for (Map<String, Object> byPath : (List<Map<String, Object>>) operations.get("operationsByPath")) {
+                for (CodegenOperation op : (Collection<CodegenOperation>) byPath.get("operation")) {
+                    if (op.vendorExtensions.containsKey("x-ignored")) {
+                        continue;
+                    }
+                    Map<String, String> types = new HashMap<String, String>();
+                    for (CodegenParameter param : op.pathParams) {
+                        types.put(param.baseName, getPathParamType(param));
+                    }
+                    if (!router.add(op.httpMethod, op.path, types)) {
+                        LOGGER.warn("Path parameters of " + op.path + " are not whole path segments or a greedy one"
+                                + " is not last, " + op.httpMethod.toUpperCase() + " " + op.path
+                                + " is left out of router.js and only reachable through the API Gateway resource.");
+                    }
+                }
+            }
+        }
+        return router;
+    }
+
+    private static String getPathParamType(CodegenParameter param) {
+        if (param.isBoolean) {
+            return "boolean";
+        }
+        if (param.isInteger || param.isLong) {
+            return "integer";
+        }
+        return "Number".equals(param.dataType) ? "number" : "string";
+    }
+
+    /**
+     * One API Gateway proxy event per operation for the generated load test.  Writes come first, so the reads
+     * and deletes after them find items in the tables.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> getLoadTestEvents(Map<String, Object> objs) {
+        List<HttpMethod> order = Arrays.asList(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.GET,
+                HttpMethod.HEAD, HttpMethod.DELETE);
+        LoadTestEventBuilder builder = new LoadTestEventBuilder(swagger.getDefinitions());
+        List<Map<String, Object>> events = new ArrayList<Map<String, Object>>();
+        for (HttpMethod method : order) {
+            for (Map<String, Object> operations : getOperations(objs)) {
+                for (CodegenOperation op : (List<CodegenOperation>) operations.get("operation")) {
+                    Path path = swagger.getPath(op.path);
+                    Operation operation = path == null ? null : path.getOperationMap().get(method);
+                    if (operation == null || !method.name().equalsIgnoreCase(op.httpMethod)
+                            || op.vendorExtensions.containsKey("x-ignored")) {
+                        continue;
+                    }
+                    Map<String, Object> event = new LinkedHashMap<String, Object>();
+                    event.put("operationId", op.operationId);
+                    event.put("tag", operations.get("classname"));
+                    event.put("event", builder.build(op.path, method, operation));
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Lists the Lambda functions of the per-operation bundle mode together with the files and npm modules
+     * each of them has to ship.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> getBundles(Map<String, Object> objs) {
+        List<Map<String, Object>> bundles = new ArrayList<Map<String, Object>>();
+        for (Map<String, Object> api : getApis(objs)) {
+            Map<String, Object> operations = (Map<String, Object>) api.get("operations");
+            String classname = (String) operations.get("classname");
+            for (CodegenOperation op : (List<CodegenOperation>) operations.get("operation")) {
+                if (op.vendorExtensions.containsKey("x-ignored")) {
+                    continue;
+                }
+                List<String> files = getOperationFiles(op, classname);
+                Map<String, Object> bundle = new LinkedHashMap<String, Object>();
+                bundle.put("functionName", op.vendorExtensions.get("x-aws-function-name"));
+                bundle.put("handler", "handlers/" + classname + "Handler." + op.nickname);
+                bundle.put("method", op.httpMethod.toUpperCase());
+                bundle.put("path", op.path);
+                bundle.put("files", files);
+                bundle.put("dependencies", files.contains("utils/dynamodb.js")
+                        || files.contains("models/dynamoose-wrapper.js")
+                        ? Arrays.asList("dynamoose") : Collections.<String>emptyList());
+                bundles.add(bundle);
+            }
+        }
+        return bundles;
+    }
+
+    /**
+     * The files the function of an operation loads: its handler, the modules its handler and service function
+     * require, see bindOperationRequires, and what those modules require in turn.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> getOperationFiles(CodegenOperation op, String classname) {
+        Set<String> files = new LinkedHashSet<String>();
+        files.add("handlers/" + classname + "Handler.js");
+        for (String requires : Arrays.asList("x-aws-handler-requires", "x-aws-service-requires")) {
+            for (Map<String, String> require : (List<Map<String, String>>) op.vendorExtensions.get(requires)) {
+                files.add(require.get("file"));
+            }
+        }
+        if (files.contains("utils/batch.js") || files.contains("utils/scan.js") || files.contains("utils/item.js")) {
+            // batch.js, scan.js and item.js share the DocumentClient of dynamodb.js.
+            files.add("utils/dynamodb.js");
+        }
+        if (files.contains("models/dynamoose-wrapper.js")) {
+            // the wrapper only loads the definitions of the models that are actually used.
+            String modelType = op.vendorExtensions.get("x-aws-cruds-model-type").toString();
+            files.add("models/interfaces/" + toModelFilename(modelType) + "_def.js");
+        }
+        if (metrics && (files.contains("utils/cache.js") || files.contains("utils/dynamodb.js")
+                || files.contains("models/dynamoose-wrapper.js"))) {
+            files.add("utils/metrics.js");
+        }
+        return new ArrayList<String>(files);
     }
 
     @Override
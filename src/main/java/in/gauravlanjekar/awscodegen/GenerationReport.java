@@ -0,0 +1,282 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.swagger.util.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Wall-clock time and allocated bytes of a generator run, per phase, per template and per tag, plus counts of what
+ * was generated.
+ * <p>
+ * Time on the generator thread is attributed to the innermost phase entered with {@link #enter(String)}, time
+ * between the hooks of the generator to `codegen`, the work swagger-codegen does itself.  A file rendered by the
+ * generator is timed from the {@link #rendering(String)} call until the next hook as `renderAndWrite`.  Files
+ * rendered by the {@link ParallelRenderer} are reported as `render` and `write`; those phases run on other threads
+ * and overlap the rest.
+ */
+public class GenerationReport {
+
+    public static final String FILENAME = ".awscodegen-report.json";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GenerationReport.class);
+    private static final String CODEGEN = "codegen";
+    private static final String RENDER_AND_WRITE = "renderAndWrite";
+
+    private final long start = System.nanoTime();
+    private final Deque<Span> spans = new ArrayDeque<Span>();
+    private final Map<String, Stats> phases = new LinkedHashMap<String, Stats>();
+    private final Map<String, Stats> templates = new TreeMap<String, Stats>();
+    private final Map<String, Stats> tags = new TreeMap<String, Stats>();
+    private final Map<String, Long> counts = new TreeMap<String, Long>();
+    private final Map<String, String[]> files = new HashMap<String, String[]>();
+    private long lastNanos = start;
+    private long lastAllocated = allocatedBytes();
+    private String renderingFile;
+
+    public GenerationReport() {
+        spans.push(new Span(CODEGEN, null, null));
+    }
+
+    /**
+     * Records the template and tag of a file the generator is going to write.
+     */
+    public synchronized void expect(String filename, String template, String tag) {
+        files.put(key(filename), new String[]{template, tag});
+    }
+
+    public void enter(String phase) {
+        enter(phase, null);
+    }
+
+    /**
+     * Starts a phase on the generator thread, nested in the current one.
+     */
+    public void enter(String phase, String tag) {
+        account();
+        finishRendering();
+        spans.push(new Span(phase, null, tag));
+    }
+
+    public void exit() {
+        account();
+        finishRendering();
+        spans.pop();
+    }
+
+    /**
+     * Times the rendering of a file by the generator itself, until the next hook is called.
+     */
+    public void rendering(String filename) {
+        account();
+        finishRendering();
+        if (spans.size() > 1) {
+            // not rendered by the generator but by our own code, which times itself.
+            return;
+        }
+        String[] file = files.get(key(filename));
+        renderingFile = filename;
+        spans.push(new Span(RENDER_AND_WRITE, file == null ? null : file[0], file == null ? null : file[1]));
+    }
+
+    /**
+     * Records a file rendered and written on another thread.
+     */
+    public synchronized void rendered(String filename, long renderNanos, long renderAllocated, long writeNanos,
+                                      long writeAllocated, long bytes) {
+        String[] file = files.get(key(filename));
+        Span render = new Span("render", file == null ? null : file[0], file == null ? null : file[1]);
+        add(render, renderNanos, renderAllocated, 0);
+        add(new Span("write", render.template, render.tag), writeNanos, writeAllocated, bytes);
+        written(bytes);
+    }
+
+    public synchronized void count(String name, long value) {
+        Long count = counts.get(name);
+        counts.put(name, (count == null ? 0 : count) + value);
+    }
+
+    public synchronized void written(long bytes) {
+        count("files", 1);
+        count("bytesWritten", bytes);
+    }
+
+    public void save(File file) {
+        account();
+        finishRendering();
+        Map<String, Object> report = new LinkedHashMap<String, Object>();
+        synchronized (this) {
+            report.put("totalMillis", millis(System.nanoTime() - start));
+            report.put("counts", counts);
+            report.put("phases", phases);
+            report.put("templates", templates);
+            report.put("tags", tags);
+        }
+        try {
+            Json.pretty().writeValue(file, report);
+        } catch (IOException e) {
+            LOGGER.error("Could not write " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, 0 when the JVM does not track them.
+     */
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    private void account() {
+        long now = System.nanoTime();
+        long allocated = allocatedBytes();
+        synchronized (this) {
+            add(spans.peek(), now - lastNanos, allocated - lastAllocated, 0);
+        }
+        lastNanos = now;
+        lastAllocated = allocated;
+    }
+
+    private void finishRendering() {
+        if (renderingFile != null) {
+            long bytes = new File(renderingFile).length();
+            Span span = spans.pop();
+            synchronized (this) {
+                add(span, 0, 0, bytes);
+                written(bytes);
+            }
+            renderingFile = null;
+        }
+    }
+
+    private void add(Span span, long nanos, long allocated, long bytes) {
+        stats(phases, span.phase).add(nanos, allocated, bytes);
+        if (span.template != null) {
+            stats(templates, span.template).add(nanos, allocated, bytes);
+        }
+        if (span.tag != null) {
+            stats(tags, span.tag).add(nanos, allocated, bytes);
+        }
+    }
+
+    private static Stats stats(Map<String, Stats> stats, String name) {
+        Stats result = stats.get(name);
+        if (result == null) {
+            result = new Stats();
+            stats.put(name, result);
+        }
+        return result;
+    }
+
+    private static String key(String filename) {
+        return new File(filename).getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private static class Span {
+
+        final String phase;
+        final String template;
+        final String tag;
+
+        Span(String phase, String template, String tag) {
+            this.phase = phase;
+            this.template = template;
+            this.tag = tag;
+        }
+    }
+
+    public static class Stats {
+
+        private long nanos;
+        private long allocatedBytes;
+        private long bytesWritten;
+
+        void add(long nanos, long allocated, long bytes) {
+            this.nanos += nanos;
+            this.allocatedBytes += allocated;
+            this.bytesWritten += bytes;
+        }
+
+        public double getMillis() {
+            return millis(nanos);
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+    }
+
+    /**
+     * Prints the differences between two reports, e.g. of the last release and the current one.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: GenerationReport <before.json> <after.json>");
+            System.exit(1);
+        }
+        TypeReference<Map<String, Object>> type = new TypeReference<Map<String, Object>>() {
+        };
+        Map<String, Object> before = Json.mapper().readValue(new File(args[0]), type);
+        Map<String, Object> after = Json.mapper().readValue(new File(args[1]), type);
+        System.out.println(String.format("%-48s %14s %14s %9s", "", "before", "after", "change"));
+        compare("totalMillis", before.get("totalMillis"), after.get("totalMillis"));
+        for (String section : new String[]{"counts", "phases", "templates", "tags"}) {
+            Map<String, Object> beforeSection = section(before, section);
+            Map<String, Object> afterSection = section(after, section);
+            TreeSet<String> names = new TreeSet<String>(beforeSection.keySet());
+            names.addAll(afterSection.keySet());
+            for (String name : names) {
+                if ("counts".equals(section)) {
+                    compare(section + "." + name, beforeSection.get(name), afterSection.get(name));
+                    continue;
+                }
+                for (String value : new String[]{"millis", "allocatedBytes", "bytesWritten"}) {
+                    compare(section + "." + name + "." + value,
+                            section(beforeSection, name).get(value), section(afterSection, name).get(value));
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Map<String, Object> report, String name) {
+        Object section = report.get(name);
+        return section instanceof Map ? (Map<String, Object>) section : new HashMap<String, Object>();
+    }
+
+    private static void compare(String name, Object before, Object after) {
+        double beforeValue = before == null ? 0 : ((Number) before).doubleValue();
+        double afterValue = after == null ? 0 : ((Number) after).doubleValue();
+        if (beforeValue == 0 && afterValue == 0) {
+            return;
+        }
+        String change = beforeValue == 0 ? "new" : String.format("%+.1f%%", (afterValue - beforeValue) * 100 / beforeValue);
+        System.out.println(String.format("%-48s %14.3f %14.3f %9s", name, beforeValue, afterValue, change));
+    }
+}
@@ -0,0 +1,228 @@
+package in.gauravlanjekar.awscodegen;
+
+import io.swagger.codegen.ClientOptInput;
+import io.swagger.codegen.ClientOpts;
+import io.swagger.codegen.CodegenConstants;
+import io.swagger.codegen.DefaultGenerator;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the JVM, the generator classes and the compiled templates warm between runs.
+ * <p>
+ * {@code --watch <spec> --output <dir>} regenerates whenever the spec, or a template in {@code --template-dir},
+ * changes.  {@code --port <port>} listens on the loopback interface for one request per connection, a line
+ * {@code <spec> <output dir>}, and answers with {@code OK <millis>} or {@code ERROR <message>}.  Any local process can
+ * connect, so both paths have to be inside {@code --root}, the working directory by default; relative paths are
+ * resolved against it.
+ * <p>
+ * Generator options are read from the system properties of the daemon, e.g. {@code -Dincremental}.  Files are
+ * rendered with {@code -DrenderThreads}, one thread per core, unless it is set.
+ */
+public class GeneratorDaemon {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratorDaemon.class);
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    private final String templateDir;
+
+    public GeneratorDaemon(String templateDir) {
+        this.templateDir = templateDir;
+    }
+
+    /**
+     * Generates the code of a spec.
+     */
+    public void generate(String spec, String outputDir) {
+        AwscodegenGenerator config = new AwscodegenGenerator();
+        try {
+            generate(config, spec, outputDir);
+        } finally {
+            // a failed run leaves the threads of the ParallelRenderer behind, once per request or change.
+            config.abortRendering();
+        }
+    }
+
+    private void generate(AwscodegenGenerator config, String spec, String outputDir) {
+        config.startParsing();
+        Swagger swagger = new SwaggerParser().read(spec, null, true);
+        if (swagger == null) {
+            throw new IllegalArgumentException("Could not read spec " + spec);
+        }
+        config.setOutputDir(new File(outputDir).getAbsolutePath());
+        if (templateDir != null) {
+            config.additionalProperties().put(CodegenConstants.TEMPLATE_DIR, templateDir);
+        }
+        if (System.getProperty("renderThreads") == null) {
+            // templates are only kept compiled when rendered by the ParallelRenderer.
+            config.additionalProperties().put("renderThreads", "");
+        }
+        new DefaultGenerator()
+                .opts(new ClientOptInput().opts(new ClientOpts()).swagger(swagger).config(config))
+                .generate();
+    }
+
+    /**
+     * Serves generation requests on a loopback port, one at a time.
+     */
+    public void serve(int port, File root) throws IOException {
+        File canonicalRoot = root.getCanonicalFile();
+        ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        LOGGER.info("Listening on " + server.getLocalSocketAddress());
+        try {
+            while (true) {
+                Socket socket = server.accept();
+                try {
+                    handle(socket, canonicalRoot);
+                } finally {
+                    socket.close();
+                }
+            }
+        } finally {
+            server.close();
+        }
+    }
+
+    private void handle(Socket socket, File root) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+        String line = in.readLine();
+        String[] request = line == null ? new String[0] : line.trim().split("\\s+");
+        if (request.length != 2) {
+            out.println("ERROR expected <spec> <output dir>");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            generate(inside(root, request[0]), inside(root, request[1]));
+            out.println("OK " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not generate " + request[0], e);
+            out.println("ERROR " + e.getMessage());
+        }
+    }
+
+    /**
+     * The canonical path of a requested file, which has to be the root or inside of it.
+     */
+    static String inside(File root, String path) throws IOException {
+        File file = new File(path);
+        File canonical = (file.isAbsolute() ? file : new File(root, path)).getCanonicalFile();
+        if (!canonical.equals(root) && !canonical.getPath().startsWith(root.getPath() + File.separator)) {
+            throw new IllegalArgumentException(path + " is outside of " + root);
+        }
+        return canonical.getPath();
+    }
+
+    /**
+     * Generates the spec and generates it again whenever it or one of the templates changes.
+     */
+    public void watch(String spec, String outputDir) throws IOException, InterruptedException {
+        Path specFile = new File(spec).getAbsoluteFile().toPath();
+        WatchService watcher = FileSystems.getDefault().newWatchService();
+        try {
+            register(watcher, specFile.getParent());
+            if (templateDir != null) {
+                register(watcher, new File(templateDir).getAbsoluteFile().toPath());
+            }
+            regenerate(spec, outputDir);
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = changed(key, specFile);
+                // editors save in several steps, wait until the files settle.
+                WatchKey next;
+                while ((next = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= changed(next, specFile);
+                }
+                if (changed) {
+                    regenerate(spec, outputDir);
+                }
+            }
+        } finally {
+            watcher.close();
+        }
+    }
+
+    private static void register(WatchService watcher, Path folder) throws IOException {
+        folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    private boolean changed(WatchKey key, Path specFile) {
+        Path folder = (Path) key.watchable();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path file = folder.resolve((Path) event.context());
+            changed |= file.equals(specFile) || file.toString().endsWith(".mustache");
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void regenerate(String spec, String outputDir) {
+        long start = System.nanoTime();
+        try {
+            generate(spec, outputDir);
+            LOGGER.info("Generated " + spec + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not generate " + spec, e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String spec = null;
+        String outputDir = null;
+        String templateDir = null;
+        Integer port = null;
+        String root = ".";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if ("--watch".equals(args[i])) {
+                spec = args[i + 1];
+            } else if ("--output".equals(args[i])) {
+                outputDir = args[i + 1];
+            } else if ("--template-dir".equals(args[i])) {
+                templateDir = args[i + 1];
+            } else if ("--port".equals(args[i])) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if ("--root".equals(args[i])) {
+                root = args[i + 1];
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        GeneratorDaemon daemon = new GeneratorDaemon(templateDir);
+        if (port != null) {
+            daemon.serve(port, new File(root));
+        } else if (spec != null && outputDir != null) {
+            daemon.watch(spec, outputDir);
+        } else {
+            System.err.println("Usage: GeneratorDaemon --port <port> [--root <dir>] [--template-dir <dir>]\n"
+                    + "       GeneratorDaemon --watch <spec> --output <dir> [--template-dir <dir>]\n"
+                    + "Any local process can connect to the port and have specs read and files written, as the user\n"
+                    + "running the daemon, inside --root, the working directory by default.");
+            System.exit(1);
+        }
+    }
+}
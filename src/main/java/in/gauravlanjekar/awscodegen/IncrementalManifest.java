@@ -0,0 +1,197 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.util.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hashes of the inputs and outputs of every generated file, kept next to the generated code.  A file whose
+ * spec fragment, template and generator options hash the same as in the previous run, and which still has
+ * the content written back then, does not need to be rendered again.
+ */
+public class IncrementalManifest {
+
+    public static final String FILENAME = ".awscodegen-manifest.json";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalManifest.class);
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int VERSION = 1;
+
+    private final File outputFolder;
+    private final String optionsHash;
+    private final Map<String, Map<String, Map<String, String>>> previous;
+    private final Map<String, Map<String, Map<String, String>>> current =
+            new TreeMap<String, Map<String, Map<String, String>>>();
+    private final Map<String, String> groupsByFile = new HashMap<String, String>();
+
+    public IncrementalManifest(File outputFolder, String optionsHash) {
+        this.outputFolder = outputFolder;
+        this.optionsHash = optionsHash;
+        this.previous = load(new File(outputFolder, FILENAME), optionsHash);
+    }
+
+    /**
+     * Records the input hashes of a file about to be generated.
+     *
+     * @param group        `apis/{tag}`, `models/{model}` or `supportingFiles`
+     * @param filename     the file as passed to the generator
+     * @param fragmentHash hash of the part of the spec the file is generated from
+     * @param templateHash hash of the template, partials included
+     */
+    public void track(String group, String filename, String fragmentHash, String templateHash) {
+        String path = relativePath(filename);
+        Map<String, Map<String, String>> files = current.get(group);
+        if (files == null) {
+            files = new TreeMap<String, Map<String, String>>();
+            current.put(group, files);
+        }
+        Map<String, String> entry = new TreeMap<String, String>();
+        entry.put("fragment", fragmentHash);
+        entry.put("template", templateHash);
+        files.put(path, entry);
+        groupsByFile.put(path, group);
+    }
+
+    /**
+     * True when the file was tracked with the same inputs as last time and was not touched since.
+     */
+    public boolean isUpToDate(String filename) {
+        String path = relativePath(filename);
+        String group = groupsByFile.get(path);
+        if (group == null || previous.get(group) == null) {
+            return false;
+        }
+        Map<String, String> before = previous.get(group).get(path);
+        Map<String, String> now = current.get(group).get(path);
+        if (before == null || !now.get("fragment").equals(before.get("fragment"))
+                || !now.get("template").equals(before.get("template"))) {
+            return false;
+        }
+        File file = new File(outputFolder, path);
+        return file.isFile() && before.get("output") != null && before.get("output").equals(hashFile(file));
+    }
+
+    /**
+     * Hashes the generated files and writes the manifest, leaving it untouched when nothing changed.
+     */
+    public void save() {
+        for (Map<String, Map<String, String>> files : current.values()) {
+            for (Map.Entry<String, Map<String, String>> entry : files.entrySet()) {
+                File file = new File(outputFolder, entry.getKey());
+                if (file.isFile()) {
+                    entry.getValue().put("output", hashFile(file));
+                }
+            }
+        }
+        Map<String, Object> manifest = new TreeMap<String, Object>();
+        manifest.put("version", VERSION);
+        manifest.put("options", optionsHash);
+        manifest.put("files", current);
+        File file = new File(outputFolder, FILENAME);
+        try {
+            byte[] contents = Json.pretty().writeValueAsBytes(manifest);
+            if (!file.isFile() || !Arrays.equals(contents, Files.readAllBytes(file.toPath()))) {
+                Files.write(file.toPath(), contents);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not write " + FILENAME + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(String.valueOf(part).getBytes(UTF_8));
+                digest.update((byte) 0);
+            }
+            return toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Hashes the JSON serialization of a value without holding it in memory.
+     */
+    public static String hashJson(ObjectMapper mapper, Object value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            mapper.writeValue(new DigestOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }, digest), value);
+            return toHex(digest.digest());
+        } catch (IOException e) {
+            LOGGER.warn("Could not serialize " + value + ": " + e.getMessage());
+            return String.valueOf(System.nanoTime());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hashFile(File file) {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath())));
+        } catch (IOException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private String relativePath(String filename) {
+        return outputFolder.toPath().toAbsolutePath().normalize()
+                .relativize(new File(filename).toPath().toAbsolutePath().normalize())
+                .toString().replace(File.separatorChar, '/');
+    }
+
+    private static Map<String, Map<String, Map<String, String>>> load(File file, String optionsHash) {
+        Map<String, Map<String, Map<String, String>>> empty = new HashMap<String, Map<String, Map<String, String>>>();
+        if (!file.isFile()) {
+            return empty;
+        }
+        try {
+            Map<String, Object> manifest = Json.mapper().readValue(file, new TypeReference<Map<String, Object>>() {
+            });
+            if (!Integer.valueOf(VERSION).equals(manifest.get("version")) || !optionsHash.equals(manifest.get("options"))) {
+                // different generator options, everything has to be generated again.
+                return empty;
+            }
+            return Json.mapper().convertValue(manifest.get("files"),
+                    new TypeReference<Map<String, Map<String, Map<String, String>>>>() {
+                    });
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable " + FILENAME + ": " + e.getMessage());
+            return empty;
+        }
+    }
+}
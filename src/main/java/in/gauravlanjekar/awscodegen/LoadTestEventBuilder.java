@@ -0,0 +1,366 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.swagger.models.ArrayModel;
+import io.swagger.models.ComposedModel;
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Operation;
+import io.swagger.models.RefModel;
+import io.swagger.models.parameters.AbstractSerializableParameter;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.SerializableParameter;
+import io.swagger.models.properties.AbstractNumericProperty;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.BooleanProperty;
+import io.swagger.models.properties.DateProperty;
+import io.swagger.models.properties.DateTimeProperty;
+import io.swagger.models.properties.MapProperty;
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.Property;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import io.swagger.models.properties.UUIDProperty;
+import io.swagger.util.Json;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the API Gateway proxy events the generated load test replays, one per operation.
+ * <p>
+ * Parameter values and bodies are taken from the examples of the spec, `x-example` of parameters, `x-examples` of
+ * body parameters and `example` of models and properties, and otherwise made up from the schema so that they pass
+ * the generated request validators: enums, defaults, bounds, lengths and formats are respected.  Values with a
+ * `pattern` but no example are left out.
+ */
+public class LoadTestEventBuilder {
+
+    private static final String JSON = "application/json";
+
+    private final Map<String, Model> definitions;
+
+    public LoadTestEventBuilder(Map<String, Model> definitions) {
+        this.definitions = definitions == null ? Collections.<String, Model>emptyMap() : definitions;
+    }
+
+    /**
+     * The proxy event of an operation.
+     */
+    public Map<String, Object> build(String resource, HttpMethod method, Operation operation) {
+        Map<String, String> pathParameters = new LinkedHashMap<String, String>();
+        Map<String, String> queryParameters = new LinkedHashMap<String, String>();
+        Map<String, String> headers = new LinkedHashMap<String, String>();
+        headers.put("Content-Type", JSON);
+        headers.put("Accept", JSON);
+        String body = null;
+        if (operation.getParameters() != null) {
+            for (Parameter parameter : operation.getParameters()) {
+                if (parameter instanceof BodyParameter) {
+                    body = bodyExample((BodyParameter) parameter);
+                } else if (parameter instanceof SerializableParameter
+                        && parameter.getVendorExtensions().get("x-aws-pagination-param") == null
+                        && parameter.getVendorExtensions().get("x-aws-etag-param") == null) {
+                    // every request reads the first page and the whole response, made up cursors would be rejected.
+                    String value = parameterExample((SerializableParameter) parameter);
+                    if (value == null) {
+                        continue;
+                    }
+                    if ("path".equals(parameter.getIn())) {
+                        pathParameters.put(parameter.getName(), value);
+                    } else if ("query".equals(parameter.getIn())) {
+                        queryParameters.put(parameter.getName(), value);
+                    } else if ("header".equals(parameter.getIn())) {
+                        headers.put(parameter.getName(), value);
+                    }
+                }
+            }
+        }
+        String path = resource;
+        for (Map.Entry<String, String> parameter : pathParameters.entrySet()) {
+            path = path.replace("{" + parameter.getKey() + "}", encode(parameter.getValue()));
+        }
+        Map<String, Object> requestContext = new LinkedHashMap<String, Object>();
+        requestContext.put("requestId", "loadtest");
+        requestContext.put("resourcePath", resource);
+        requestContext.put("httpMethod", method.name());
+        requestContext.put("stage", "loadtest");
+
+        Map<String, Object> event = new LinkedHashMap<String, Object>();
+        event.put("resource", resource);
+        event.put("path", path);
+        event.put("httpMethod", method.name());
+        event.put("headers", headers);
+        event.put("queryStringParameters", queryParameters.isEmpty() ? null : queryParameters);
+        event.put("pathParameters", pathParameters.isEmpty() ? null : pathParameters);
+        event.put("stageVariables", null);
+        event.put("requestContext", requestContext);
+        event.put("body", body);
+        event.put("isBase64Encoded", false);
+        return event;
+    }
+
+    private String bodyExample(BodyParameter parameter) {
+        if (parameter.getExamples() != null && parameter.getExamples().get(JSON) != null) {
+            return parameter.getExamples().get(JSON);
+        }
+        try {
+            return Json.mapper().writeValueAsString(modelExample(parameter.getSchema(), new HashSet<String>()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String parameterExample(SerializableParameter parameter) {
+        Object example = parameter.getVendorExtensions() == null ? null : parameter.getVendorExtensions().get("x-example");
+        if (example != null) {
+            return example.toString();
+        }
+        if (parameter instanceof AbstractSerializableParameter
+                && ((AbstractSerializableParameter<?>) parameter).getDefault() != null) {
+            return ((AbstractSerializableParameter<?>) parameter).getDefault().toString();
+        }
+        if (parameter.getEnum() != null && !parameter.getEnum().isEmpty()) {
+            return parameter.getEnum().get(0);
+        }
+        String type = parameter.getType();
+        if ("array".equals(type)) {
+            Object item = parameter.getItems() == null ? "string" : scalarExample(parameter.getItems());
+            if (item == null) {
+                return null;
+            }
+            int count = parameter.getMinItems() == null ? 1 : Math.max(1, parameter.getMinItems());
+            StringBuilder value = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                value.append(i == 0 ? "" : separator(parameter.getCollectionFormat())).append(item);
+            }
+            return value.toString();
+        }
+        if ("integer".equals(type) || "number".equals(type)) {
+            return number(parameter.getMinimum(), parameter.isExclusiveMinimum(), parameter.getMaximum(),
+                    parameter.isExclusiveMaximum(), "integer".equals(type)).toString();
+        }
+        if ("boolean".equals(type)) {
+            return "true";
+        }
+        if (parameter.getPattern() != null && !parameter.getRequired()) {
+            // a made up value would not match, leave the parameter out.
+            return null;
+        }
+        return string(parameter.getFormat(), parameter.getMinLength(), parameter.getMaxLength());
+    }
+
+    private Object modelExample(Model model, Set<String> seen) {
+        if (model == null) {
+            return null;
+        }
+        if (model.getExample() != null) {
+            return model.getExample();
+        }
+        if (model instanceof RefModel) {
+            return refExample(((RefModel) model).getSimpleRef(), seen);
+        }
+        if (model instanceof ArrayModel) {
+            List<Object> items = new ArrayList<Object>();
+            items.add(propertyExample(((ArrayModel) model).getItems(), seen));
+            return items;
+        }
+        if (model instanceof ComposedModel) {
+            Map<String, Object> merged = new LinkedHashMap<String, Object>();
+            for (Model part : ((ComposedModel) model).getAllOf()) {
+                Object example = modelExample(part, seen);
+                if (example instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> properties = (Map<String, Object>) example;
+                    merged.putAll(properties);
+                }
+            }
+            return merged;
+        }
+        if (model instanceof ModelImpl) {
+            ModelImpl impl = (ModelImpl) model;
+            if (impl.getProperties() == null && impl.getType() != null && !"object".equals(impl.getType())) {
+                if (impl.getEnum() != null && !impl.getEnum().isEmpty()) {
+                    return impl.getEnum().get(0);
+                }
+                if ("integer".equals(impl.getType()) || "number".equals(impl.getType())) {
+                    return number(impl.getMinimum(), null, impl.getMaximum(), null, "integer".equals(impl.getType()));
+                }
+                return "boolean".equals(impl.getType()) ? (Object) true : string(impl.getFormat(), null, null);
+            }
+            Map<String, Object> properties = new LinkedHashMap<String, Object>();
+            if (impl.getProperties() != null) {
+                for (Map.Entry<String, Property> property : impl.getProperties().entrySet()) {
+                    Object value = propertyExample(property.getValue(), seen);
+                    if (value != null) {
+                        properties.put(property.getKey(), value);
+                    }
+                }
+            }
+            return properties;
+        }
+        return null;
+    }
+
+    private Object refExample(String name, Set<String> seen) {
+        // recursive models end where they would repeat.
+        if (!seen.add(name)) {
+            return null;
+        }
+        Object example = modelExample(definitions.get(name), seen);
+        seen.remove(name);
+        return example;
+    }
+
+    private Object propertyExample(Property property, Set<String> seen) {
+        if (property instanceof RefProperty) {
+            return property.getExample() != null ? property.getExample()
+                    : refExample(((RefProperty) property).getSimpleRef(), seen);
+        }
+        if (property instanceof ArrayProperty) {
+            ArrayProperty array = (ArrayProperty) property;
+            List<Object> items = new ArrayList<Object>();
+            int count = array.getMinItems() == null ? 1 : Math.max(1, array.getMinItems());
+            for (int i = 0; i < count; i++) {
+                Object item = propertyExample(array.getItems(), seen);
+                if (item == null) {
+                    break;
+                }
+                items.add(item);
+            }
+            return items;
+        }
+        if (property instanceof MapProperty) {
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            Object value = propertyExample(((MapProperty) property).getAdditionalProperties(), seen);
+            if (value != null) {
+                map.put("key", value);
+            }
+            return map;
+        }
+        if (property instanceof ObjectProperty && ((ObjectProperty) property).getProperties() != null) {
+            Map<String, Object> properties = new LinkedHashMap<String, Object>();
+            for (Map.Entry<String, Property> child : ((ObjectProperty) property).getProperties().entrySet()) {
+                Object value = propertyExample(child.getValue(), seen);
+                if (value != null) {
+                    properties.put(child.getKey(), value);
+                }
+            }
+            return properties;
+        }
+        return scalarExample(property);
+    }
+
+    /**
+     * Example of a scalar property, maps and objects without properties are empty.
+     */
+    private static Object scalarExample(Property property) {
+        if (property == null) {
+            return null;
+        }
+        if (property.getExample() != null) {
+            return property.getExample();
+        }
+        if (property instanceof StringProperty) {
+            StringProperty string = (StringProperty) property;
+            if (string.getDefault() != null) {
+                return string.getDefault();
+            }
+            if (string.getEnum() != null && !string.getEnum().isEmpty()) {
+                return string.getEnum().get(0);
+            }
+            if (string.getPattern() != null) {
+                return null;
+            }
+            return string(string.getFormat(), string.getMinLength(), string.getMaxLength());
+        }
+        if (property instanceof AbstractNumericProperty) {
+            AbstractNumericProperty number = (AbstractNumericProperty) property;
+            return number(number.getMinimum(), number.getExclusiveMinimum(), number.getMaximum(),
+                    number.getExclusiveMaximum(), "integer".equals(property.getType()));
+        }
+        if (property instanceof BooleanProperty) {
+            return true;
+        }
+        if (property instanceof DateProperty) {
+            return string("date", null, null);
+        }
+        if (property instanceof DateTimeProperty) {
+            return string("date-time", null, null);
+        }
+        if (property instanceof UUIDProperty) {
+            return string("uuid", null, null);
+        }
+        if (property instanceof ObjectProperty || property instanceof MapProperty) {
+            return new LinkedHashMap<String, Object>();
+        }
+        return string(property.getFormat(), null, null);
+    }
+
+    private static Number number(BigDecimal minimum, Boolean exclusiveMinimum, BigDecimal maximum,
+                                 Boolean exclusiveMaximum, boolean integer) {
+        BigDecimal value = BigDecimal.ONE;
+        if (minimum != null) {
+            value = Boolean.TRUE.equals(exclusiveMinimum) ? minimum.add(BigDecimal.ONE) : minimum;
+        } else if (maximum != null && value.compareTo(maximum) >= 0) {
+            value = Boolean.TRUE.equals(exclusiveMaximum) ? maximum.subtract(BigDecimal.ONE) : maximum;
+        }
+        if (integer) {
+            return value.setScale(0, RoundingMode.CEILING).longValue();
+        }
+        return value.doubleValue();
+    }
+
+    private static String string(String format, Integer minLength, Integer maxLength) {
+        String value;
+        if ("date".equals(format)) {
+            value = "2017-01-01";
+        } else if ("date-time".equals(format)) {
+            value = "2017-01-01T00:00:00Z";
+        } else if ("uuid".equals(format)) {
+            value = "3fa85f64-5717-4562-b3fc-2c963f66afa6";
+        } else if ("email".equals(format)) {
+            value = "user@example.com";
+        } else {
+            value = "string";
+        }
+        StringBuilder padded = new StringBuilder(value);
+        while (minLength != null && padded.length() < minLength) {
+            padded.append('x');
+        }
+        if (maxLength != null && padded.length() > maxLength) {
+            padded.setLength(maxLength);
+        }
+        return padded.toString();
+    }
+
+    private static String separator(String collectionFormat) {
+        if ("ssv".equals(collectionFormat)) {
+            return " ";
+        } else if ("tsv".equals(collectionFormat)) {
+            return "\t";
+        } else if ("pipes".equals(collectionFormat)) {
+            return "|";
+        }
+        return ",";
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
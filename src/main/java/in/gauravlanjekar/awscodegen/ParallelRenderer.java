@@ -0,0 +1,251 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
+import io.swagger.codegen.AbstractGenerator;
+import io.swagger.codegen.CodegenConfig;
+import io.swagger.codegen.ignore.CodegenIgnoreProcessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders api and model files on a fork-join pool instead of the generator thread.
+ * <p>
+ * The template data of every file is registered once the generator has finished post processing it.  When the
+ * generator asks whether to overwrite the file, the rendering is submitted to the pool and the generator is told
+ * to skip it.  {@link #await()} has to be called before any of the registered data is modified again.
+ * <p>
+ * Files that do not exist yet are created empty when they are submitted.  When the run is aborted, or the JVM exits
+ * before the renderer is shut down, the ones that were not written are deleted again.
+ */
+public class ParallelRenderer extends AbstractGenerator {
+
+    private static final Pattern PARTIAL = Pattern.compile("\\{\\{>\\s*([^}\\s]+)\\s*}}");
+
+    /**
+     * Compiled templates by template file, shared by all runs in the same JVM.
+     */
+    private static final ConcurrentMap<String, CompiledTemplate> COMPILED = new ConcurrentHashMap<String, CompiledTemplate>();
+
+    private final CodegenConfig config;
+    private final ForkJoinPool pool;
+    private final CodegenIgnoreProcessor ignoreProcessor;
+    private final GenerationReport report;
+    private final Map<String, Template> templates = new HashMap<String, Template>();
+    private final Map<String, String> templateNames = new HashMap<String, String>();
+    private final Map<String, Map<String, Object>> templateData = new HashMap<String, Map<String, Object>>();
+    private final List<Future<File>> rendered = new ArrayList<Future<File>>();
+    private final List<String> renderedFilenames = new ArrayList<String>();
+    private final Set<File> placeholders = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+    private final Thread exitHook = new Thread("awscodegen-abort-rendering") {
+        @Override
+        public void run() {
+            stop();
+        }
+    };
+
+    /**
+     * @param report receives the render and write times of every file, may be null
+     */
+    public ParallelRenderer(CodegenConfig config, int threads, GenerationReport report) {
+        this.config = config;
+        this.report = report;
+        this.pool = new ForkJoinPool(threads);
+        this.ignoreProcessor = new CodegenIgnoreProcessor(config.getOutputDir());
+        Runtime.getRuntime().addShutdownHook(exitHook);
+    }
+
+    /**
+     * Registers the data `filename` is rendered from.  The map may still be completed by the generator until the
+     * file is submitted.
+     */
+    public void register(String filename, String templateName, Map<String, Object> data) {
+        templateNames.put(filename, templateName);
+        templateData.put(filename, data);
+    }
+
+    /**
+     * Submits the rendering of a registered file.
+     *
+     * @return false when the file is not registered or ignored and has to be handled by the generator itself
+     */
+    public boolean submit(final String filename) {
+        String templateName = templateNames.remove(filename);
+        if (templateName == null) {
+            return false;
+        }
+        final Map<String, Object> data = templateData.remove(filename);
+        final String outputFilename = filename.replaceAll("//", "/").replace('/', File.separatorChar);
+        final File file = new File(outputFilename);
+        if (!ignoreProcessor.allowsFile(file)) {
+            return false;
+        }
+        final Template template = getTemplate(templateName);
+        try {
+            // the generator renders files that do not exist yet even when told not to overwrite them.
+            if (!file.exists()) {
+                writeToFile(outputFilename, "");
+                placeholders.add(file);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not generate file '" + filename + "'", e);
+        }
+        rendered.add(pool.submit(new Callable<File>() {
+            @Override
+            public File call() throws IOException {
+                if (report == null) {
+                    return written(writeToFile(outputFilename, template.execute(data)));
+                }
+                long start = System.nanoTime();
+                long allocated = GenerationReport.allocatedBytes();
+                String contents = template.execute(data);
+                long rendered = System.nanoTime();
+                long renderAllocated = GenerationReport.allocatedBytes();
+                File written = written(writeToFile(outputFilename, contents));
+                report.rendered(filename, rendered - start, renderAllocated - allocated, System.nanoTime() - rendered,
+                        GenerationReport.allocatedBytes() - renderAllocated, written.length());
+                return written;
+            }
+        }));
+        renderedFilenames.add(filename);
+        return true;
+    }
+
+    private File written(File file) {
+        placeholders.remove(file);
+        return file;
+    }
+
+    /**
+     * Waits until all submitted files are written.
+     */
+    public void await() {
+        for (int i = 0; i < rendered.size(); i++) {
+            try {
+                rendered.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while generating '" + renderedFilenames.get(i) + "'", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Could not generate file '" + renderedFilenames.get(i) + "'", e.getCause());
+            }
+        }
+        rendered.clear();
+        renderedFilenames.clear();
+    }
+
+    public void shutdown() {
+        try {
+            await();
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+        pool.shutdown();
+        removeExitHook();
+    }
+
+    /**
+     * Stops the threads without waiting for the submitted files, once the run failed.  The files created empty for
+     * the ones that were not written yet are deleted.
+     */
+    public void abort() {
+        stop();
+        rendered.clear();
+        renderedFilenames.clear();
+        removeExitHook();
+    }
+
+    private void stop() {
+        pool.shutdownNow();
+        try {
+            // a file still being written is either completed or left empty, never deleted while it is written.
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (File placeholder : placeholders) {
+            if (placeholder.length() == 0) {
+                placeholder.delete();
+            }
+        }
+        placeholders.clear();
+    }
+
+    private void removeExitHook() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(exitHook);
+        } catch (IllegalStateException e) {
+            // the JVM is exiting, the hook runs anyway.
+        }
+    }
+
+    /**
+     * Compiles a template the same way the generator does.  Compiled templates are shared by all threads and, as
+     * long as neither the template nor one of its partials changed, by later runs.
+     */
+    private Template getTemplate(String templateName) {
+        Template template = templates.get(templateName);
+        if (template == null) {
+            String templateFile = getFullTemplateFile(config, templateName);
+            String source = readTemplate(templateFile);
+            StringBuilder sources = new StringBuilder();
+            appendSources(templateName, source, sources, new HashSet<String>());
+            CompiledTemplate compiled = COMPILED.get(templateFile);
+            if (compiled == null || !compiled.sources.equals(sources.toString())) {
+                Mustache.Compiler compiler = config.processCompiler(Mustache.compiler());
+                compiled = new CompiledTemplate(sources.toString(), compiler.withLoader(new Mustache.TemplateLoader() {
+                    @Override
+                    public Reader getTemplate(String name) {
+                        return getTemplateReader(getFullTemplateFile(config, name + ".mustache"));
+                    }
+                }).defaultValue("").compile(source));
+                COMPILED.put(templateFile, compiled);
+            }
+            template = compiled.template;
+            templates.put(templateName, template);
+        }
+        return template;
+    }
+
+    private void appendSources(String templateName, String source, StringBuilder sources, Set<String> seen) {
+        if (!seen.add(templateName)) {
+            return;
+        }
+        sources.append(templateName).append('\n').append(source).append('\n');
+        Matcher partials = PARTIAL.matcher(source);
+        while (partials.find()) {
+            String partial = partials.group(1) + ".mustache";
+            appendSources(partial, readTemplate(getFullTemplateFile(config, partial)), sources, seen);
+        }
+    }
+
+    private static class CompiledTemplate {
+
+        final String sources;
+        final Template template;
+
+        CompiledTemplate(String sources, Template template) {
+            this.sources = sources;
+            this.template = template;
+        }
+    }
+}
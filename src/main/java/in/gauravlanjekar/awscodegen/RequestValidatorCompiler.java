@@ -0,0 +1,559 @@
+package in.gauravlanjekar.awscodegen;
+
+import io.swagger.codegen.CodegenParameter;
+import io.swagger.models.ArrayModel;
+import io.swagger.models.ComposedModel;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Operation;
+import io.swagger.models.RefModel;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.SerializableParameter;
+import io.swagger.models.properties.AbstractNumericProperty;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.BooleanProperty;
+import io.swagger.models.properties.DateProperty;
+import io.swagger.models.properties.DateTimeProperty;
+import io.swagger.models.properties.DecimalProperty;
+import io.swagger.models.properties.DoubleProperty;
+import io.swagger.models.properties.FloatProperty;
+import io.swagger.models.properties.MapProperty;
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.Property;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compiles the parameter and body schemas of the operations of a tag into plain JavaScript, so the generated
+ * validators do not interpret schemas at runtime.
+ * <p>
+ * The code of an operation checks the variables named after its parameters and pushes `{message}` objects to an
+ * `errors` array.  Models get a `validate{Model}(value, path, errors)` function each, regular expressions and
+ * enums are module constants; both are returned by {@link #compileModule()}.
+ */
+public class RequestValidatorCompiler {
+
+    private static final String DATE_PATTERN = "^\\d{4}-\\d{2}-\\d{2}$";
+    private static final String DATE_TIME_PATTERN =
+            "^\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?(Z|[+-]\\d{2}:\\d{2})$";
+
+    private final Map<String, Model> definitions;
+    private final Map<String, String> constants = new LinkedHashMap<String, String>();
+    private final Set<String> referencedModels = new TreeSet<String>();
+    private int variables = 0;
+
+    public RequestValidatorCompiler(Map<String, Model> definitions) {
+        this.definitions = definitions == null ? Collections.<String, Model>emptyMap() : definitions;
+    }
+
+    /**
+     * Compiles the checks of the parameters of an operation, empty when there is nothing to check.
+     */
+    public String compileOperation(Operation operation, List<CodegenParameter> params) {
+        StringBuilder out = new StringBuilder();
+        if (params == null || operation.getParameters() == null) {
+            return "";
+        }
+        for (CodegenParameter param : params) {
+            Parameter parameter = findParameter(operation, param);
+            if (parameter == null) {
+                continue;
+            }
+            Schema schema;
+            boolean fromString;
+            if (parameter instanceof BodyParameter) {
+                schema = fromModel(((BodyParameter) parameter).getSchema());
+                if (operation.getVendorExtensions().get("x-aws-patch") != null) {
+                    schema = partial(schema);
+                }
+                fromString = false;
+            } else if (parameter instanceof SerializableParameter) {
+                schema = fromParameter((SerializableParameter) parameter);
+                fromString = true;
+            } else {
+                continue;
+            }
+            emitValue(out, "  ", param.paramName, literal(parameter.getName()), schema, parameter.getRequired(), fromString);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Compiles the constants and model functions used by the operations compiled so far.
+     */
+    public String compileModule() {
+        StringBuilder functions = new StringBuilder();
+        Set<String> compiled = new TreeSet<String>();
+        while (!compiled.containsAll(referencedModels)) {
+            for (String name : new ArrayList<String>(referencedModels)) {
+                if (!compiled.add(name)) {
+                    continue;
+                }
+                functions.append("function ").append(functionName(name)).append("(value, path, errors) {\n");
+                emitChecks(functions, "  ", "value", "path", fromModel(definitions.get(name)), false);
+                functions.append("}\n\n");
+            }
+        }
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, String> constant : constants.entrySet()) {
+            out.append("const ").append(constant.getValue()).append(" = ").append(constant.getKey()).append(";\n");
+        }
+        if (!constants.isEmpty()) {
+            out.append('\n');
+        }
+        return out.append(functions).toString();
+    }
+
+    /**
+     * The schema of a partial update of a model, none of its attributes is required.  Nested objects are
+     * replaced as a whole and keep their required properties.
+     */
+    private Schema partial(Schema schema) {
+        if (schema == null) {
+            return null;
+        }
+        if (schema.ref != null) {
+            if (!definitions.containsKey(schema.ref)) {
+                return schema;
+            }
+            schema = fromModel(definitions.get(schema.ref));
+        }
+        for (int i = 0; i < schema.allOf.size(); i++) {
+            schema.allOf.set(i, partial(schema.allOf.get(i)));
+        }
+        schema.required.clear();
+        return schema;
+    }
+
+    private static Parameter findParameter(Operation operation, CodegenParameter param) {
+        for (Parameter parameter : operation.getParameters()) {
+            boolean sameLocation = param.isBodyParam ? "body".equals(parameter.getIn())
+                    : param.isPathParam ? "path".equals(parameter.getIn())
+                    : param.isQueryParam ? "query".equals(parameter.getIn())
+                    : param.isHeaderParam ? "header".equals(parameter.getIn())
+                    : param.isFormParam && "formData".equals(parameter.getIn());
+            if (sameLocation && (param.isBodyParam || parameter.getName().equals(param.baseName))) {
+                return parameter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks a value that may be missing.
+     */
+    private void emitValue(StringBuilder out, String indent, String value, String path, Schema schema,
+                           boolean required, boolean fromString) {
+        StringBuilder checks = new StringBuilder();
+        emitChecks(checks, indent + "  ", value, path, schema, fromString);
+        if (!required) {
+            if (checks.length() > 0) {
+                out.append(indent).append("if (").append(value).append(" !== undefined && ").append(value)
+                        .append(" !== null) {\n").append(checks).append(indent).append("}\n");
+            }
+            return;
+        }
+        out.append(indent).append("if (").append(value).append(" === undefined || ").append(value).append(" === null) {\n");
+        fail(out, indent + "  ", path, "is required");
+        out.append(indent).append('}');
+        if (checks.length() > 0) {
+            out.append(" else {\n").append(checks).append(indent).append('}');
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Checks a value that is present.  Path, query and header parameters are checked for being of their type or
+     * a string parsable to it; requests pass strings, typed path parameters and direct invocations native values.
+     */
+    private void emitChecks(StringBuilder out, String indent, String value, String path, Schema schema,
+                            boolean fromString) {
+        if (schema == null) {
+            return;
+        }
+        if (schema.ref != null) {
+            if (definitions.containsKey(schema.ref)) {
+                referencedModels.add(schema.ref);
+                out.append(indent).append(functionName(schema.ref)).append('(').append(value).append(", ")
+                        .append(path).append(", errors);\n");
+            }
+            return;
+        }
+        for (Schema part : schema.allOf) {
+            emitChecks(out, indent, value, path, part, fromString);
+        }
+        if (schema.type == null) {
+            return;
+        }
+        String inner = indent + "  ";
+        if ("array".equals(schema.type)) {
+            String items = value;
+            if (fromString) {
+                // a repeated query parameter is already split by express.
+                items = variable("items");
+                out.append(indent).append("const ").append(items).append(" = Array.isArray(").append(value).append(") ? ")
+                        .append(value).append(" : String(").append(value).append(").split(")
+                        .append(literal(separator(schema.collectionFormat))).append(");\n");
+                inner = indent;
+            } else {
+                out.append(indent).append("if (!Array.isArray(").append(value).append(")) {\n");
+                fail(out, inner, path, "must be an array");
+                out.append(indent).append("} else {\n");
+            }
+            if (schema.minItems != null) {
+                out.append(inner).append("if (").append(items).append(".length < ").append(schema.minItems).append(") {\n");
+                fail(out, inner + "  ", path, "must have at least " + schema.minItems + " items");
+                out.append(inner).append("}\n");
+            }
+            if (schema.maxItems != null) {
+                out.append(inner).append("if (").append(items).append(".length > ").append(schema.maxItems).append(") {\n");
+                fail(out, inner + "  ", path, "must have at most " + schema.maxItems + " items");
+                out.append(inner).append("}\n");
+            }
+            StringBuilder itemChecks = new StringBuilder();
+            String index = variable("i");
+            emitChecks(itemChecks, inner + "  ", items + "[" + index + "]", path + " + '[' + " + index + " + ']'",
+                    schema.items, fromString);
+            if (itemChecks.length() > 0) {
+                out.append(inner).append("for (let ").append(index).append(" = 0; ").append(index).append(" < ")
+                        .append(items).append(".length; ").append(index).append("++) {\n")
+                        .append(itemChecks).append(inner).append("}\n");
+            }
+            if (!fromString) {
+                out.append(indent).append("}\n");
+            }
+        } else if ("object".equals(schema.type)) {
+            if (fromString) {
+                return;
+            }
+            out.append(indent).append("if (").append(value).append(" === null || typeof ").append(value)
+                    .append(" !== 'object' || Array.isArray(").append(value).append(")) {\n");
+            fail(out, inner, path, "must be an object");
+            out.append(indent).append("} else {\n");
+            for (Map.Entry<String, Schema> property : schema.properties.entrySet()) {
+                String propertyValue = variable("v");
+                out.append(inner).append("const ").append(propertyValue).append(" = ").append(value).append('[')
+                        .append(literal(property.getKey())).append("];\n");
+                emitValue(out, inner, propertyValue, child(path, "." + property.getKey()), property.getValue(),
+                        schema.required.contains(property.getKey()), false);
+            }
+            if (schema.additionalProperties != null) {
+                StringBuilder additionalChecks = new StringBuilder();
+                String key = variable("key");
+                emitChecks(additionalChecks, inner + "  ", value + "[" + key + "]", path + " + '.' + " + key,
+                        schema.additionalProperties, false);
+                if (additionalChecks.length() > 0) {
+                    out.append(inner).append("for (const ").append(key).append(" of Object.keys(").append(value)
+                            .append(")) {\n").append(additionalChecks).append(inner).append("}\n");
+                }
+            }
+            out.append(indent).append("}\n");
+        } else if ("integer".equals(schema.type) || "number".equals(schema.type)) {
+            String number = value;
+            boolean integer = "integer".equals(schema.type);
+            if (fromString) {
+                // typed path parameters and direct invocations pass numbers, the other requests strings.
+                String pattern = constant(integer ? "/^-?\\d+$/" : "/^-?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?$/", "PATTERN");
+                out.append(indent).append("if (typeof ").append(value).append(" === 'number' ? ")
+                        .append(integer ? "!Number.isInteger(" + value + ")" : "!isFinite(" + value + ")")
+                        .append(" : !").append(pattern).append(".test(").append(value).append(")) {\n");
+                number = "Number(" + value + ")";
+            } else if (integer) {
+                out.append(indent).append("if (!Number.isInteger(").append(value).append(")) {\n");
+            } else {
+                out.append(indent).append("if (typeof ").append(value).append(" !== 'number' || !isFinite(")
+                        .append(value).append(")) {\n");
+            }
+            fail(out, inner, path, integer ? "must be an integer" : "must be a number");
+            out.append(indent).append('}');
+            StringBuilder range = new StringBuilder();
+            emitBound(range, inner, number, path, schema.minimum, schema.exclusiveMinimum, true);
+            emitBound(range, inner, number, path, schema.maximum, schema.exclusiveMaximum, false);
+            if (range.length() > 0) {
+                out.append(" else {\n").append(range).append(indent).append('}');
+            }
+            out.append('\n');
+        } else if ("boolean".equals(schema.type)) {
+            if (fromString) {
+                out.append(indent).append("if (typeof ").append(value).append(" !== 'boolean' && ").append(value)
+                        .append(" !== 'true' && ").append(value).append(" !== 'false') {\n");
+            } else {
+                out.append(indent).append("if (typeof ").append(value).append(" !== 'boolean') {\n");
+            }
+            fail(out, inner, path, "must be a boolean");
+            out.append(indent).append("}\n");
+        } else if ("string".equals(schema.type)) {
+            out.append(indent).append("if (typeof ").append(value).append(" !== 'string') {\n");
+            fail(out, inner, path, "must be a string");
+            out.append(indent).append('}');
+            StringBuilder checks = new StringBuilder();
+            if (schema.minLength != null) {
+                checks.append(inner).append("if (").append(value).append(".length < ").append(schema.minLength).append(") {\n");
+                fail(checks, inner + "  ", path, "must be at least " + schema.minLength + " characters long");
+                checks.append(inner).append("}\n");
+            }
+            if (schema.maxLength != null) {
+                checks.append(inner).append("if (").append(value).append(".length > ").append(schema.maxLength).append(") {\n");
+                fail(checks, inner + "  ", path, "must be at most " + schema.maxLength + " characters long");
+                checks.append(inner).append("}\n");
+            }
+            if (schema.pattern != null) {
+                emitPattern(checks, inner, value, path, schema.pattern, "must match " + schema.pattern);
+            } else if ("date".equals(schema.format)) {
+                emitPattern(checks, inner, value, path, DATE_PATTERN, "must be a date");
+            } else if ("date-time".equals(schema.format)) {
+                emitPattern(checks, inner, value, path, DATE_TIME_PATTERN, "must be a date-time");
+            }
+            if (schema.enumValues != null && !schema.enumValues.isEmpty()) {
+                StringBuilder values = new StringBuilder();
+                for (String enumValue : schema.enumValues) {
+                    values.append(values.length() == 0 ? "" : ", ").append(literal(enumValue));
+                }
+                checks.append(inner).append("if (!").append(constant("new Set([" + values + "])", "ENUM"))
+                        .append(".has(").append(value).append(")) {\n");
+                fail(checks, inner + "  ", path, "must be one of " + schema.enumValues);
+                checks.append(inner).append("}\n");
+            }
+            if (checks.length() > 0) {
+                out.append(" else {\n").append(checks).append(indent).append('}');
+            }
+            out.append('\n');
+        }
+    }
+
+    private void emitPattern(StringBuilder out, String indent, String value, String path, String pattern,
+                             String message) {
+        out.append(indent).append("if (!").append(constant("new RegExp(" + literal(pattern) + ")", "PATTERN"))
+                .append(".test(").append(value).append(")) {\n");
+        fail(out, indent + "  ", path, message);
+        out.append(indent).append("}\n");
+    }
+
+    private void emitBound(StringBuilder out, String indent, String value, String path, BigDecimal bound,
+                           Boolean exclusive, boolean minimum) {
+        if (bound == null) {
+            return;
+        }
+        boolean isExclusive = Boolean.TRUE.equals(exclusive);
+        String operator = minimum ? (isExclusive ? " <= " : " < ") : (isExclusive ? " >= " : " > ");
+        String comparison = minimum ? (isExclusive ? ">" : ">=") : (isExclusive ? "<" : "<=");
+        out.append(indent).append("if (").append(value).append(operator).append(bound.toPlainString()).append(") {\n");
+        fail(out, indent + "  ", path, "must be " + comparison + " " + bound.toPlainString());
+        out.append(indent).append("}\n");
+    }
+
+    private static void fail(StringBuilder out, String indent, String path, String message) {
+        out.append(indent).append("errors.push({message: ").append(child(path, " " + message)).append("});\n");
+    }
+
+    private String constant(String expression, String prefix) {
+        String name = constants.get(expression);
+        if (name == null) {
+            name = prefix + "_" + constants.size();
+            constants.put(expression, name);
+        }
+        return name;
+    }
+
+    private String variable(String prefix) {
+        return prefix + (variables++);
+    }
+
+    private static String functionName(String model) {
+        return "validate" + model.replaceAll("[^A-Za-z0-9_$]", "_");
+    }
+
+    private static String separator(String collectionFormat) {
+        if ("ssv".equals(collectionFormat)) {
+            return " ";
+        } else if ("tsv".equals(collectionFormat)) {
+            return "\t";
+        } else if ("pipes".equals(collectionFormat)) {
+            return "|";
+        }
+        return ",";
+    }
+
+    /**
+     * Appends to a path, folding string literals.
+     */
+    private static String child(String path, String suffix) {
+        if (path.startsWith("'") && path.endsWith("'") && path.indexOf('\'', 1) == path.length() - 1) {
+            return literal(path.substring(1, path.length() - 1).replace("\\'", "'") + suffix);
+        }
+        return path + " + " + literal(suffix);
+    }
+
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder("'");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\'':
+                    out.append("\\'");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('\'').toString();
+    }
+
+    private static Schema fromParameter(SerializableParameter parameter) {
+        Schema schema = new Schema();
+        schema.type = parameter.getType();
+        schema.format = parameter.getFormat();
+        schema.enumValues = parameter.getEnum();
+        schema.minimum = parameter.getMinimum();
+        schema.maximum = parameter.getMaximum();
+        schema.exclusiveMinimum = parameter.isExclusiveMinimum();
+        schema.exclusiveMaximum = parameter.isExclusiveMaximum();
+        schema.minLength = parameter.getMinLength();
+        schema.maxLength = parameter.getMaxLength();
+        schema.pattern = parameter.getPattern();
+        schema.minItems = parameter.getMinItems();
+        schema.maxItems = parameter.getMaxItems();
+        schema.collectionFormat = parameter.getCollectionFormat();
+        schema.items = fromProperty(parameter.getItems());
+        return schema;
+    }
+
+    private static Schema fromModel(Model model) {
+        Schema schema = new Schema();
+        if (model instanceof RefModel) {
+            schema.ref = ((RefModel) model).getSimpleRef();
+        } else if (model instanceof ArrayModel) {
+            schema.type = "array";
+            schema.items = fromProperty(((ArrayModel) model).getItems());
+        } else if (model instanceof ComposedModel) {
+            for (Model part : ((ComposedModel) model).getAllOf()) {
+                schema.allOf.add(fromModel(part));
+            }
+        } else if (model instanceof ModelImpl) {
+            ModelImpl impl = (ModelImpl) model;
+            schema.type = impl.getType() == null && impl.getProperties() != null ? "object" : impl.getType();
+            schema.format = impl.getFormat();
+            schema.enumValues = impl.getEnum();
+            schema.minimum = impl.getMinimum();
+            schema.maximum = impl.getMaximum();
+            if (impl.getProperties() != null) {
+                for (Map.Entry<String, Property> property : impl.getProperties().entrySet()) {
+                    schema.properties.put(property.getKey(), fromProperty(property.getValue()));
+                }
+            }
+            if (impl.getRequired() != null) {
+                schema.required.addAll(impl.getRequired());
+            }
+            schema.additionalProperties = fromProperty(impl.getAdditionalProperties());
+        } else {
+            return null;
+        }
+        return schema;
+    }
+
+    private static Schema fromProperty(Property property) {
+        if (property == null) {
+            return null;
+        }
+        Schema schema = new Schema();
+        if (property instanceof RefProperty) {
+            schema.ref = ((RefProperty) property).getSimpleRef();
+            return schema;
+        }
+        schema.type = property.getType();
+        schema.format = property.getFormat();
+        if (property instanceof ArrayProperty) {
+            ArrayProperty array = (ArrayProperty) property;
+            schema.type = "array";
+            schema.items = fromProperty(array.getItems());
+            schema.minItems = array.getMinItems();
+            schema.maxItems = array.getMaxItems();
+        } else if (property instanceof MapProperty) {
+            schema.type = "object";
+            schema.additionalProperties = fromProperty(((MapProperty) property).getAdditionalProperties());
+        } else if (property instanceof ObjectProperty) {
+            ObjectProperty object = (ObjectProperty) property;
+            schema.type = "object";
+            if (object.getProperties() != null) {
+                for (Map.Entry<String, Property> child : object.getProperties().entrySet()) {
+                    schema.properties.put(child.getKey(), fromProperty(child.getValue()));
+                    if (child.getValue().getRequired()) {
+                        schema.required.add(child.getKey());
+                    }
+                }
+            }
+        } else if (property instanceof StringProperty) {
+            StringProperty string = (StringProperty) property;
+            schema.enumValues = string.getEnum();
+            schema.minLength = string.getMinLength();
+            schema.maxLength = string.getMaxLength();
+            schema.pattern = string.getPattern();
+        } else if (property instanceof AbstractNumericProperty) {
+            AbstractNumericProperty number = (AbstractNumericProperty) property;
+            schema.type = "integer".equals(property.getType()) ? "integer" : "number";
+            schema.minimum = number.getMinimum();
+            schema.maximum = number.getMaximum();
+            schema.exclusiveMinimum = number.getExclusiveMinimum();
+            schema.exclusiveMaximum = number.getExclusiveMaximum();
+        } else if (property instanceof BooleanProperty) {
+            schema.type = "boolean";
+        } else if (property instanceof DateProperty || property instanceof DateTimeProperty) {
+            schema.type = "string";
+        } else if (property instanceof DoubleProperty || property instanceof FloatProperty
+                || property instanceof DecimalProperty) {
+            schema.type = "number";
+        }
+        return schema;
+    }
+
+    /**
+     * The parts of a parameter, model or property schema the validators check.
+     */
+    private static class Schema {
+
+        String ref;
+        String type;
+        String format;
+        List<String> enumValues;
+        BigDecimal minimum;
+        BigDecimal maximum;
+        Boolean exclusiveMinimum;
+        Boolean exclusiveMaximum;
+        Integer minLength;
+        Integer maxLength;
+        String pattern;
+        Integer minItems;
+        Integer maxItems;
+        String collectionFormat;
+        Schema items;
+        Schema additionalProperties;
+        final Map<String, Schema> properties = new LinkedHashMap<String, Schema>();
+        final Set<String> required = new TreeSet<String>();
+        final List<Schema> allOf = new ArrayList<Schema>();
+    }
+}
@@ -0,0 +1,173 @@
+package in.gauravlanjekar.awscodegen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiles the paths of the operations into the radix tree `router.js` looks requests up in, so matching a request
+ * takes one walk down the tree instead of testing the pattern of every route.
+ * <p>
+ * Nodes are maps with the short keys of the generated table: `p` is the static label of the edge into the node,
+ * `s` the static children by the first character of their label, `v` the child after a path parameter, `w` the
+ * child after a greedy `{name+}` parameter taking the rest of the path and `m` the routes ending at the node by
+ * lower case method.  Routes are indexes into {@link #routes()}, which holds the route key `{method} {path}` and the
+ * names and types of its path parameters in the order of the path.
+ */
+public class RouteTableCompiler {
+
+    private final Map<String, Object> root = node("");
+    private final List<Map<String, Object>> routes = new ArrayList<Map<String, Object>>();
+
+    /**
+     * Adds the route of an operation, false when its path has a parameter that is not a whole path segment or a
+     * greedy parameter that is not the last one; those cannot be matched.
+     *
+     * @param types the `string`, `integer`, `number` or `boolean` type of every path parameter by name
+     */
+    public boolean add(String method, String path, Map<String, String> types) {
+        List<String> parts = split(path);
+        if (parts == null) {
+            return false;
+        }
+        List<List<String>> params = new ArrayList<List<String>>();
+        Map<String, Object> node = root;
+        for (int i = 0; i < parts.size(); i++) {
+            String part = parts.get(i);
+            if (!part.startsWith("{")) {
+                node = insertStatic(node, part);
+                continue;
+            }
+            String name = part.substring(1, part.length() - 1);
+            boolean greedy = name.endsWith("+");
+            if (greedy) {
+                if (i < parts.size() - 1) {
+                    return false;
+                }
+                name = name.substring(0, name.length() - 1);
+            }
+            String type = types.get(name);
+            params.add(list(name, greedy || type == null ? "string" : type));
+            node = child(node, greedy ? "w" : "v");
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> methods = (Map<String, Object>) node.get("m");
+        if (methods == null) {
+            methods = new TreeMap<String, Object>();
+            node.put("m", methods);
+        }
+        if (methods.containsKey(method)) {
+            // the same path with other parameter names, the first operation wins as in express.
+            return true;
+        }
+        Map<String, Object> route = new LinkedHashMap<String, Object>();
+        route.put("route", method + " " + path);
+        route.put("params", params);
+        methods.put(method, routes.size());
+        routes.add(route);
+        return true;
+    }
+
+    /**
+     * The root of the tree.
+     */
+    public Map<String, Object> tree() {
+        return root;
+    }
+
+    /**
+     * The routes the tree points to.
+     */
+    public List<Map<String, Object>> routes() {
+        return routes;
+    }
+
+    /**
+     * Splits a path into its static text and its parameters, null when a parameter is not a whole segment.
+     */
+    private static List<String> split(String path) {
+        List<String> parts = new ArrayList<String>();
+        int start = 0;
+        while (start < path.length()) {
+            int open = path.indexOf('{', start);
+            if (open < 0) {
+                parts.add(path.substring(start));
+                break;
+            }
+            int close = path.indexOf('}', open);
+            if (close < 0 || open == 0 || path.charAt(open - 1) != '/'
+                    || close < path.length() - 1 && path.charAt(close + 1) != '/') {
+                return null;
+            }
+            parts.add(path.substring(start, open));
+            parts.add(path.substring(open, close + 1));
+            start = close + 1;
+        }
+        return parts;
+    }
+
+    /**
+     * Walks the static text down from the node, splitting the edges that only share a prefix with it.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> insertStatic(Map<String, Object> node, String text) {
+        while (!text.isEmpty()) {
+            Map<String, Object> children = (Map<String, Object>) node.get("s");
+            if (children == null) {
+                children = new TreeMap<String, Object>();
+                node.put("s", children);
+            }
+            String first = text.substring(0, 1);
+            Map<String, Object> next = (Map<String, Object>) children.get(first);
+            if (next == null) {
+                next = node(text);
+                children.put(first, next);
+                return next;
+            }
+            String label = (String) next.get("p");
+            int common = 0;
+            while (common < label.length() && common < text.length() && label.charAt(common) == text.charAt(common)) {
+                common++;
+            }
+            if (common < label.length()) {
+                // the new text leaves the edge half way, the rest of the edge moves below a new node.
+                Map<String, Object> split = node(label.substring(0, common));
+                next.put("p", label.substring(common));
+                Map<String, Object> splitChildren = new TreeMap<String, Object>();
+                splitChildren.put(label.substring(common, common + 1), next);
+                split.put("s", splitChildren);
+                children.put(first, split);
+                next = split;
+            }
+            node = next;
+            text = text.substring(common);
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> child(Map<String, Object> node, String key) {
+        Map<String, Object> child = (Map<String, Object>) node.get(key);
+        if (child == null) {
+            // parameters are not labelled, they take the text up to the next slash.
+            child = new LinkedHashMap<String, Object>();
+            node.put(key, child);
+        }
+        return child;
+    }
+
+    private static Map<String, Object> node(String label) {
+        Map<String, Object> node = new LinkedHashMap<String, Object>();
+        node.put("p", label);
+        return node;
+    }
+
+    private static List<String> list(String name, String type) {
+        List<String> param = new ArrayList<String>();
+        param.add(name);
+        param.add(type);
+        return param;
+    }
+}
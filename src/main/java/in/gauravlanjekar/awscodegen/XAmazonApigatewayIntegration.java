@@ -1,6 +1,7 @@
 
 package in.gauravlanjekar.awscodegen;
 
+import java.util.List;
 
 public class XAmazonApigatewayIntegration {
 
@@ -8,6 +9,9 @@ public class XAmazonApigatewayIntegration {
     private RequestTemplates requestTemplates;
     private String passthroughBehavior;
     private String type;
+    private String httpMethod;
+    private String uri;
+    private List<String> cacheKeyParameters;
 
     public Responses getResponses() {
         return responses;
@@ -41,4 +45,28 @@ public class XAmazonApigatewayIntegration {
         this.type = type;
     }
 
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.httpMethod = httpMethod;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public List<String> getCacheKeyParameters() {
+        return cacheKeyParameters;
+    }
+
+    public void setCacheKeyParameters(List<String> cacheKeyParameters) {
+        this.cacheKeyParameters = cacheKeyParameters;
+    }
+
 }
@@ -0,0 +1,71 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Paths marked with x-aws-batch get batch-get and batch-write operations for their model.
+ */
+public class BatchOperationsTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("toys.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testKeysHaveTheTypeOfTheHashKey() throws IOException {
+        String swagger = project.read("api/swagger.yaml");
+        assertTrue(swagger, swagger.contains("description: \"Values of the toyId of the Toy items to get\"\n"
+                + "        required: true\n"
+                + "        schema:\n"
+                + "          type: \"array\"\n"
+                + "          items:\n"
+                + "            type: \"integer\"\n"
+                + "            format: \"int64\""));
+    }
+
+    public void testItemsAreWrittenAndReadInChunks() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode invocations = project.invoke("index.handler", "process.env.Toy_TABLE = 'toys';\n"
+                        + "const toys = [];\n"
+                        + "for (let i = 0; i < 30; i++) toys.push({toyId: i, label: `toy ${i}`});\n"
+                        + "const keys = [];\n"
+                        + "for (let i = 0; i < 300; i++) keys.push(i % 150);",
+                "{httpMethod: 'POST', resource: '/toys/batch-write', body: JSON.stringify(toys)}",
+                "{httpMethod: 'POST', resource: '/toys/batch-get', body: JSON.stringify(keys)}",
+                "{httpMethod: 'POST', resource: '/toys/batch-get', body: '[\"1\"]'}");
+        JsonNode responses = invocations.get("responses");
+        assertEquals(200, responses.get(0).get("statusCode").asInt());
+        assertEquals(200, responses.get(1).get("statusCode").asInt());
+        assertEquals(30, Json.mapper().readTree(responses.get(1).get("body").asText()).size());
+        assertEquals(400, responses.get(2).get("statusCode").asInt());
+        // at most 25 items per BatchWriteItem and 100 distinct keys per BatchGetItem.
+        int writes = 0;
+        List<Integer> keys = new ArrayList<Integer>();
+        for (JsonNode call : invocations.get("calls")) {
+            if ("batchWriteItem".equals(call.get("operation").asText())) {
+                writes++;
+            } else if ("batchGetItem".equals(call.get("operation").asText())) {
+                keys.add(call.get("params").get("RequestItems").get("toys").get("Keys").size());
+            }
+        }
+        assertEquals(2, writes);
+        assertEquals(Arrays.asList(100, 50), keys);
+    }
+}
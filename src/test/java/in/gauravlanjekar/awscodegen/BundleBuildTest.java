@@ -0,0 +1,128 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The generated project declares exactly the modules it requires and bundles them with bundle/build.js.
+ */
+public class BundleBuildTest extends TestCase {
+
+    private static final Pattern REQUIRE = Pattern.compile("require\\('([^'./][^']*)'\\)");
+    private static final List<String> BUILT_IN = Arrays.asList("async_hooks", "child_process", "crypto", "fs", "path",
+            "zlib");
+
+    // stands in for esbuild: records the options, writes an empty bundle and reports the inputs of the entry.
+    private static final String FAKE_ESBUILD = "const fs = require('fs');\n"
+            + "const path = require('path');\n"
+            + "exports.build = (options) => {\n"
+            + "  fs.writeFileSync(path.join(options.absWorkingDir, 'esbuild.json'), JSON.stringify(options));\n"
+            + "  fs.mkdirSync(path.dirname(options.outfile), {recursive: true});\n"
+            + "  fs.writeFileSync(options.outfile, 'module.exports = {};');\n"
+            + "  const outputs = {[path.relative(options.absWorkingDir, options.outfile)]: {bytes: 2048}};\n"
+            + "  return Promise.resolve({metafile: {inputs: {'index.js': {bytes: 1024}, 'routes.js': {bytes: 3072}},"
+            + " outputs: outputs}});\n"
+            + "};\n";
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.<String, String>emptyMap());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testRequiredModulesAreDeclared() throws IOException {
+        Set<String> required = new HashSet<String>();
+        for (File file : scripts(project.folder)) {
+            if (file.getParentFile().getName().equals("bundle")) {
+                continue;
+            }
+            Matcher matcher = REQUIRE.matcher(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                if (!BUILT_IN.contains(matcher.group(1))) {
+                    required.add(matcher.group(1));
+                }
+            }
+        }
+        JsonNode packageJson = Json.mapper().readTree(project.file("package.json"));
+        Set<String> declared = new HashSet<String>();
+        for (Iterator<String> names = packageJson.get("dependencies").fieldNames(); names.hasNext(); ) {
+            declared.add(names.next());
+        }
+        assertEquals(declared, required);
+        assertEquals("node bundle/build.js", packageJson.get("scripts").get("bundle").asText());
+        assertTrue(packageJson.get("devDependencies").has("esbuild"));
+        // the express index.js proxies the events to the app of api.js.
+        assertTrue(project.file("api.js").exists());
+    }
+
+    public void testBuildReportsSizeAndRequireTime() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        File esbuild = project.file("node_modules/esbuild/index.js");
+        esbuild.getParentFile().mkdirs();
+        Files.write(esbuild.toPath(), FAKE_ESBUILD.getBytes(StandardCharsets.UTF_8));
+        // the sources are required by the report as well.
+        for (String module : new String[] {"aws-serverless-express", "express", "body-parser", "cors", "compression"}) {
+            File stub = project.file("node_modules/" + module + "/index.js");
+            stub.getParentFile().mkdirs();
+            Files.write(stub.toPath(), "module.exports = () => ({use() {}});".getBytes(StandardCharsets.UTF_8));
+        }
+        project.installFakeDynamoose();
+        GeneratedProject.Result result = project.node("process.env.BUNDLE_RUNS = '1';\n"
+                + "process.env.BUNDLE_EXTERNAL = 'dynamoose';\n"
+                + "require('./bundle/build.js');");
+        assertEquals(result.output, 0, result.exitCode);
+        assertTrue(result.output, result.output.matches(
+                "(?s)index: 2\\.0 KiB from 2 modules \\(4\\.0 KiB\\), require [\\d.]+ ms \\(sources [\\d.]+ ms\\)\\s*"));
+        JsonNode options = Json.mapper().readTree(project.file("esbuild.json"));
+        assertEquals("[\"aws-sdk\",\"dynamoose\"]", options.get("external").toString());
+        assertTrue(options.get("minify").asBoolean());
+        assertTrue(options.get("bundle").asBoolean());
+        assertTrue(project.file("dist/index.js").exists());
+    }
+
+    public void testBundlingCanBeTurnedOff() throws IOException {
+        GeneratedProject plain = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("nobundle", ""));
+        try {
+            assertFalse(plain.file("bundle/build.js").exists());
+            assertFalse(plain.read("package.json").contains("esbuild"));
+        } finally {
+            plain.delete();
+        }
+    }
+
+    private static List<File> scripts(File folder) {
+        List<File> scripts = new ArrayList<File>();
+        File[] files = folder.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            if (file.isDirectory() && !file.getName().equals("node_modules")) {
+                scripts.addAll(scripts(file));
+            } else if (file.getName().endsWith(".js")) {
+                scripts.add(file);
+            }
+        }
+        return scripts;
+    }
+}
@@ -0,0 +1,177 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The functions of bundles.json have to work with only the files listed for them.
+ */
+public class BundlesTest extends TestCase {
+
+    // requires of a module and of its functions, the lazy ones of the model definitions are passed to lazyModel.
+    private static final Pattern REQUIRE = Pattern.compile(
+            "^\\s*(?:const [\\w{} ,]+ = )?require\\('(\\.{1,2}/[^']+)'\\)", Pattern.MULTILINE);
+
+    private GeneratedProject project;
+    private JsonNode bundles;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("bundleMode", "operation"));
+        bundles = Json.mapper().readTree(project.file("bundles.json"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testEveryOperationHasABundle() {
+        assertEquals(10, bundles.size());
+        for (JsonNode bundle : bundles) {
+            String handler = bundle.get("handler").asText();
+            String file = handler.substring(0, handler.lastIndexOf('.')) + ".js";
+            assertTrue(handler, contains(bundle.get("files"), file));
+        }
+    }
+
+    public void testOnlyTheUtilsOfTheOperationAreListed() {
+        JsonNode getPet = bundle("getPet");
+        assertTrue(contains(getPet.get("files"), "utils/cache.js"));
+        assertTrue(contains(getPet.get("files"), "models/interfaces/Pet_def.js"));
+        for (String file : new String[] {"utils/batch.js", "utils/scan.js", "utils/item.js", "utils/dynamodb.js",
+                "utils/pagination.js", "models/interfaces/Toy_def.js", "service/ToysService.js"}) {
+            assertFalse(file, contains(getPet.get("files"), file));
+        }
+        JsonNode exportToys = bundle("exportToys");
+        assertTrue(contains(exportToys.get("files"), "utils/scan.js"));
+        assertFalse(contains(exportToys.get("files"), "models/dynamoose-wrapper.js"));
+        assertFalse(contains(exportToys.get("files"), "utils/cache.js"));
+    }
+
+    public void testFilesRequiredByTheOperationAreListed() throws IOException {
+        for (JsonNode bundle : bundles) {
+            String handler = bundle.get("handler").asText();
+            String nickname = handler.substring(handler.lastIndexOf('.') + 1);
+            Set<String> files = new HashSet<String>();
+            for (JsonNode file : bundle.get("files")) {
+                files.add(file.asText());
+            }
+            for (String file : files) {
+                Matcher matcher = REQUIRE.matcher(moduleAndFunction(project.read(file), nickname));
+                while (matcher.find()) {
+                    String required = resolve(file, matcher.group(1));
+                    assertTrue(bundle.get("functionName").asText() + ": " + file + " requires " + required,
+                            files.contains(required));
+                }
+            }
+        }
+    }
+
+    public void testBundlesRunInIsolation() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        for (JsonNode bundle : bundles) {
+            File folder = Files.createTempDirectory("awscodegen-bundle").toFile();
+            try {
+                for (JsonNode file : bundle.get("files")) {
+                    File target = new File(folder, file.asText());
+                    target.getParentFile().mkdirs();
+                    Files.copy(project.file(file.asText()).toPath(), target.toPath());
+                }
+                for (JsonNode dependency : bundle.get("dependencies")) {
+                    assertEquals("dynamoose", dependency.asText());
+                }
+                JsonNode response = new GeneratedProject(folder).invoke(bundle.get("handler").asText(),
+                        "process.env.Pet_TABLE = 'pets';\n"
+                                + "process.env.Toy_TABLE = 'toys';\n"
+                                + "dynamoose.put('pets', [{id: '1', name: 'Rex', version: 1}]);\n"
+                                + "dynamoose.put('toys', [{id: '1', toyId: 1}]);",
+                        event(bundle)).get("responses").get(0);
+                String functionName = bundle.get("functionName").asText();
+                assertTrue(functionName + ": " + response, response.get("statusCode").asInt() < 300);
+            } finally {
+                GeneratedProject.delete(folder);
+            }
+        }
+    }
+
+    /**
+     * A valid proxy event for the operation of the bundle, with 1 for every path parameter.
+     */
+    private static String event(JsonNode bundle) {
+        String path = bundle.get("path").asText();
+        String method = bundle.get("method").asText();
+        StringBuilder event = new StringBuilder("{httpMethod: '").append(method).append("', resource: '")
+                .append(path).append("', pathParameters: {");
+        Matcher parameters = Pattern.compile("\\{(\\w+)\\}").matcher(path);
+        while (parameters.find()) {
+            event.append(parameters.group(1)).append(": '1', ");
+        }
+        event.append('}');
+        if (path.endsWith("batch-get")) {
+            event.append(", body: '[\"1\"]'");
+        } else if (path.endsWith("batch-write")) {
+            event.append(", body: '[{\"id\": \"2\", \"name\": \"Tom\"}]'");
+        } else if (!"GET".equals(method) && !"DELETE".equals(method)) {
+            event.append(", body: '{\"id\": \"1\", \"name\": \"Tom\"}'");
+        }
+        return event.append('}').toString();
+    }
+
+    private JsonNode bundle(String nickname) {
+        for (JsonNode bundle : bundles) {
+            if (bundle.get("handler").asText().endsWith("." + nickname)) {
+                return bundle;
+            }
+        }
+        throw new AssertionError(nickname);
+    }
+
+    /**
+     * The code of a module outside of its exported functions plus the function of the operation, the others
+     * are never run by the function of the bundle.
+     */
+    private static String moduleAndFunction(String code, String nickname) {
+        int first = code.indexOf("\nexports.");
+        if (first < 0) {
+            return code;
+        }
+        StringBuilder run = new StringBuilder(code.substring(0, first));
+        int start = code.indexOf("\nexports." + nickname + " = ");
+        if (start >= 0) {
+            int end = code.indexOf("\nexports.", start + 1);
+            run.append(code.substring(start, end < 0 ? code.length() : end));
+        }
+        return run.toString();
+    }
+
+    private static boolean contains(JsonNode files, String file) {
+        for (JsonNode node : files) {
+            if (node.asText().equals(file)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The path of a relative require from a file, relative to the project with the .js extension.
+     */
+    private static String resolve(String from, String required) {
+        String path = new File(new File(from).getParentFile(), required).toPath().normalize().toString()
+                .replace(File.separatorChar, '/');
+        return path.endsWith(".js") ? path : path + ".js";
+    }
+}
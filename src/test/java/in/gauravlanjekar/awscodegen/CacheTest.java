@@ -0,0 +1,73 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * GET operations with x-aws-cache read through a container local cache that the writes of the model invalidate.
+ */
+public class CacheTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.<String, String>emptyMap());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testOptionsAreGeneratedPerModel() throws IOException {
+        String cache = project.read("utils/cache.js");
+        assertTrue(cache, cache.contains("  'Pet': {ttlSeconds: 30, maxEntries: 1000},\n"));
+        String service = project.read("service/PetsService.js");
+        assertTrue(service, service.contains("return cache.forModel('Pet')\n              .read(id, "));
+    }
+
+    public void testWritesInvalidateWhatReadsCached() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        project.installFakeDynamoose();
+        GeneratedProject.Result result = project.node("process.env.Pet_TABLE = 'pets';\n"
+                + "const dynamoose = require('dynamoose');\n"
+                + "dynamoose.put('pets', [{id: '1', name: 'Rex', version: 1}, {id: '2', name: 'Tom', version: 1}]);\n"
+                + "const cache = require('./utils/cache');\n"
+                + "const service = require('./service/PetsService');\n"
+                + "const results = {};\n"
+                // a write creates the cache before any read does.
+                + "service.deletePet('r1', '2')\n"
+                + "  .then(() => service.getPet('r2', '1'))\n"
+                + "  .then((pet) => {\n"
+                + "    results.loaded = pet.constructor.name;\n"
+                + "    pet.name = 'changed by the caller';\n"
+                + "    return service.getPet('r3', '1');\n"
+                + "  })\n"
+                + "  .then((pet) => {\n"
+                + "    results.cached = [pet.constructor.name, pet.name];\n"
+                + "    return service.updatePet('r4', '1', {name: 'Max'});\n"
+                + "  })\n"
+                + "  .then(() => service.getPet('r5', '1'))\n"
+                + "  .then((pet) => {\n"
+                + "    results.updated = pet.name;\n"
+                + "    results.ttlMillis = cache.forModel('Pet').store.ttlMillis;\n"
+                + "    results.stats = cache.stats().Pet;\n"
+                + "    require('fs').writeFileSync('result.json', JSON.stringify(results));\n"
+                + "  });");
+        assertEquals(result.output, 0, result.exitCode);
+        JsonNode results = Json.mapper().readTree(project.file("result.json"));
+        assertEquals("Model", results.get("loaded").asText());
+        assertEquals("[\"Object\",\"Rex\"]", results.get("cached").toString());
+        assertEquals("Max", results.get("updated").asText());
+        assertEquals(30000, results.get("ttlMillis").asInt());
+        assertEquals(1, results.get("stats").get("hits").asInt());
+        assertEquals(2, results.get("stats").get("misses").asInt());
+    }
+}
@@ -0,0 +1,82 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Direct invocations call the services of services.js, one call or many in one event.
+ */
+public class DirectInvocationTest extends TestCase {
+
+    // counts the getPet calls in flight, the last event records the most there were as a call of the fake.
+    private static final String SETUP = "process.env.Pet_TABLE = 'pets';\n"
+            + "dynamoose.put('pets', [{id: '1', name: 'Rex'}, {id: '2', name: 'Tom'}, {id: '3', name: 'Kit'}]);\n"
+            + "const services = require('./services');\n"
+            + "const getPet = services.getPet;\n"
+            + "let inFlight = 0;\n"
+            + "global.mostInFlight = 0;\n"
+            + "services.getPet = (params, requestId) => {\n"
+            + "  mostInFlight = Math.max(mostInFlight, ++inFlight);\n"
+            + "  return getPet(params, requestId).then((pet) => {\n"
+            + "    inFlight--;\n"
+            + "    return pet;\n"
+            + "  });\n"
+            + "};";
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testEveryOperationHasAService() throws IOException {
+        String services = project.read("services.js");
+        for (String operation : new String[] {"listPets", "getPet", "updatePet", "deletePet", "getToy",
+                "exportToys", "batchGetPet", "batchWritePet"}) {
+            assertTrue(operation, services.contains("\n  '" + operation + "': (params, requestId) => {"));
+        }
+    }
+
+    public void testSingleCall() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode responses = project.invoke("index.handler", SETUP,
+                "{directInvocation: true, handler: 'getPet', params: {id: '2'}}",
+                "{directInvocation: true, handler: 'feedPet', params: {id: '2'}}").get("responses");
+        assertEquals("{\"id\":\"2\",\"name\":\"Tom\"}", responses.get(0).toString());
+        assertEquals("Unknown handler feedPet", responses.get(1).get("error").asText());
+    }
+
+    public void testBatchedCallsRunConcurrentlyInOrder() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode invocations = project.invoke("index.handler", SETUP,
+                "{directInvocation: true, concurrency: 2, calls: [{handler: 'getPet', params: {id: '1'}},"
+                        + " {handler: 'feedPet'}, {handler: 'getPet', params: {id: '2'}},"
+                        + " {handler: 'getPet', params: {id: '3'}}, {handler: 'getToy', params: {id: '1'}}]}",
+                "(dynamoose.calls.push({operation: 'mostInFlight', params: mostInFlight}),"
+                        + " {directInvocation: true, calls: []})");
+        JsonNode results = invocations.get("responses").get(0);
+        assertEquals(5, results.size());
+        assertEquals("Rex", results.get(0).get("result").get("name").asText());
+        assertEquals(404, results.get(1).get("error").get("status").asInt());
+        assertEquals("Tom", results.get(2).get("result").get("name").asText());
+        assertEquals("Kit", results.get(3).get("result").get("name").asText());
+        // toyId is a required path parameter.
+        assertEquals(400, results.get(4).get("error").get("status").asInt());
+        assertEquals("[]", invocations.get("responses").get(1).toString());
+        JsonNode calls = invocations.get("calls");
+        assertEquals(2, calls.get(calls.size() - 1).get("params").asInt());
+    }
+}
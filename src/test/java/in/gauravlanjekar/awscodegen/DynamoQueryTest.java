@@ -0,0 +1,61 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * List operations query DynamoDB by their key parameters, the ones that scan the table are warned about.
+ */
+public class DynamoQueryTest extends TestCase {
+
+    public void testScansAreWarnedAbout() throws IOException {
+        File folder = Files.createTempDirectory("awscodegen-cli").toFile();
+        try {
+            GeneratedProject.Result result = GeneratedProject.cli("petstore.yaml", folder,
+                    Collections.<String, String>emptyMap());
+            assertEquals(result.output, 0, result.exitCode);
+            assertTrue(result.output, result.output.contains("listPets (GET /pets) queries model Pet by owner, but"
+                    + " generates a full table scan when that optional query parameter is missing."));
+            assertTrue(result.output, result.output.contains("exportToys (GET /export) is marked with"
+                    + " x-aws-parallel-scan, generating a full table scan of model Toy in 4 segments."));
+        } finally {
+            GeneratedProject.delete(folder);
+        }
+    }
+
+    public void testKeyParameterIsQueried() throws IOException {
+        GeneratedProject project = GeneratedProject.generate("petstore.yaml", Collections.<String, String>emptyMap());
+        try {
+            String service = project.read("service/PetsService.js");
+            assertTrue(service, service.contains("request = model.query('owner').eq(owner).using('ownerIndex');"));
+            if (!GeneratedProject.hasNode()) {
+                return;
+            }
+            project.installFakeDynamoose();
+            GeneratedProject.Result result = project.node("process.env.Pet_TABLE = 'pets';\n"
+                    + "const dynamoose = require('dynamoose');\n"
+                    + "dynamoose.put('pets', [{id: '1', owner: 'alice', name: 'Rex'},\n"
+                    + "  {id: '2', owner: 'bob', name: 'Tom'}]);\n"
+                    + "const service = require('./service/PetsService');\n"
+                    + "Promise.all([service.listPets('r1', 'alice'), service.listPets('r2')])\n"
+                    + "  .then(pages => process.stdout.write(JSON.stringify({pages: pages, calls: dynamoose.calls})));");
+            assertEquals(result.output, 0, result.exitCode);
+            JsonNode output = Json.mapper().readTree(result.output);
+            assertEquals("[{\"id\":\"1\",\"owner\":\"alice\",\"name\":\"Rex\"}]",
+                    output.get("pages").get(0).toString());
+            assertEquals(2, output.get("pages").get(1).size());
+            JsonNode calls = output.get("calls");
+            assertEquals("query", calls.get(0).get("operation").asText());
+            assertEquals("ownerIndex", calls.get(0).get("params").get("IndexName").asText());
+            assertEquals("scan", calls.get(1).get("operation").asText());
+        } finally {
+            project.delete();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.parser.SwaggerParser;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * GET responses are tagged, a request with the current tag in If-None-Match gets a 304 without a body.
+ */
+public class ETagTest extends TestCase {
+
+    private static final String SETUP = "process.env.Pet_TABLE = 'pets';\n"
+            + "dynamoose.put('pets', [{id: '1', owner: 'alice', name: 'Rex', version: 4}]);";
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testGetsDocumentTheHeaders() {
+        Swagger swagger = new SwaggerParser().read(project.file("api/swagger.yaml").getPath());
+        for (Path path : swagger.getPaths().values()) {
+            Operation get = path.getGet();
+            // streamed lists send their headers before the last page is read, so they cannot be tagged.
+            if (get == null || get.getVendorExtensions().get("x-aws-cruds-is-get") == null
+                    || get.getVendorExtensions().get("x-aws-parallel-scan") != null) {
+                continue;
+            }
+            boolean ifNoneMatch = false;
+            for (Parameter parameter : get.getParameters()) {
+                ifNoneMatch |= "header".equals(parameter.getIn()) && "If-None-Match".equals(parameter.getName());
+            }
+            assertTrue(get.getOperationId(), ifNoneMatch);
+            assertNotNull(get.getOperationId(), get.getResponses().get("200").getHeaders().get("ETag"));
+            assertNotNull(get.getOperationId(), get.getResponses().get("304"));
+        }
+    }
+
+    public void testMatchingRequestsAreNotModified() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode responses = project.invoke("index.handler", SETUP,
+                "{httpMethod: 'GET', resource: '/pets/{id}', pathParameters: {id: '1'}}",
+                "{httpMethod: 'GET', resource: '/pets/{id}', pathParameters: {id: '1'},"
+                        + " headers: {'If-None-Match': responses[0].headers.ETag}}",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {owner: 'alice'}}",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {owner: 'alice'},"
+                        + " headers: {'if-none-match': '\"other\", ' + responses[2].headers.ETag}}",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {owner: 'alice'},"
+                        + " headers: {'If-None-Match': '\"other\"'}}").get("responses");
+        assertEquals(200, responses.get(0).get("statusCode").asInt());
+        // the version of the item is its tag.
+        assertEquals("W/\"4\"", responses.get(0).get("headers").get("ETag").asText());
+        assertEquals(304, responses.get(1).get("statusCode").asInt());
+        assertEquals("", responses.get(1).path("body").asText());
+        // lists are tagged with a hash of their body.
+        String tag = responses.get(2).get("headers").get("ETag").asText();
+        assertTrue(tag, tag.matches("\"[\\w+/]{27}\""));
+        assertEquals(304, responses.get(3).get("statusCode").asInt());
+        assertEquals(200, responses.get(4).get("statusCode").asInt());
+        assertEquals(tag, responses.get(4).get("headers").get("ETag").asText());
+    }
+}
@@ -0,0 +1,87 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Responses are compressed above a minimum size and GETs marked with x-aws-gateway-cache are cached by their
+ * parameters in the stage cache.
+ */
+public class GatewayCacheTest extends TestCase {
+
+    public void testDefaults() throws IOException {
+        GeneratedProject project = GeneratedProject.generate("petstore.yaml", Collections.<String, String>emptyMap());
+        try {
+            Swagger swagger = spec(project);
+            assertEquals(1024, swagger.getVendorExtensions().get("x-amazon-apigateway-minimum-compression-size"));
+            assertEquals(Arrays.asList("method.request.path.id", "method.request.header.If-None-Match"),
+                    cacheKeyParameters(swagger, "/pets/{id}"));
+            assertEquals("{/~1pets~1{id}/GET/caching/ttlInSeconds=60}", ttls(project).toString());
+            String controller = project.read("controllers/Pets.js");
+            assertTrue(controller, controller.contains("threshold: 1024,"));
+            // behind API Gateway the gateway compresses.
+            assertTrue(controller, controller.contains("filter: (req, res) => !req.get('x-apigateway-event')"));
+        } finally {
+            project.delete();
+        }
+    }
+
+    public void testOptions() throws IOException {
+        Map<String, String> options = new HashMap<String, String>();
+        options.put("gatewayCacheTtl", "30");
+        options.put("nocompression", "");
+        GeneratedProject project = GeneratedProject.generate("petstore.yaml", options);
+        try {
+            Swagger swagger = spec(project);
+            assertNull(swagger.getVendorExtensions().get("x-amazon-apigateway-minimum-compression-size"));
+            assertEquals(Arrays.asList("method.request.querystring.owner", "method.request.querystring.tag",
+                    "method.request.querystring.limit", "method.request.querystring.cursor",
+                    "method.request.querystring.fields", "method.request.header.If-None-Match"),
+                    cacheKeyParameters(swagger, "/pets"));
+            Map<String, String> ttls = ttls(project);
+            assertEquals("30", ttls.get("/~1pets/GET/caching/ttlInSeconds"));
+            // the ttl of the operation wins.
+            assertEquals("60", ttls.get("/~1pets~1{id}/GET/caching/ttlInSeconds"));
+            assertFalse(project.read("controllers/Pets.js").contains("compression"));
+        } finally {
+            project.delete();
+        }
+    }
+
+    private static Swagger spec(GeneratedProject project) {
+        return new SwaggerParser().read(project.file("api/swagger.yaml").getPath());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> cacheKeyParameters(Swagger swagger, String path) {
+        Map<String, Object> integration = (Map<String, Object>) swagger.getPath(path).getGet().getVendorExtensions()
+                .get("x-amazon-apigateway-integration");
+        return (List<String>) integration.get("cacheKeyParameters");
+    }
+
+    /**
+     * The TTLs of the patch operations of api/gateway-cache.json by path, every cached method is enabled as well.
+     */
+    private static Map<String, String> ttls(GeneratedProject project) throws IOException {
+        Map<String, String> ttls = new HashMap<String, String>();
+        JsonNode operations = Json.mapper().readTree(project.file("api/gateway-cache.json"));
+        for (JsonNode operation : operations) {
+            String path = operation.get("path").asText();
+            if (path.endsWith("/caching/ttlInSeconds")) {
+                ttls.put(path, operation.get("value").asText());
+                assertTrue(path, operations.toString().contains(path.replace("ttlInSeconds", "enabled")));
+            }
+        }
+        return ttls;
+    }
+}
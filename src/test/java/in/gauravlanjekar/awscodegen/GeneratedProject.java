@@ -0,0 +1,237 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.codegen.ClientOptInput;
+import io.swagger.codegen.ClientOpts;
+import io.swagger.codegen.DefaultGenerator;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * A project generated from a spec of src/test/resources into a temporary folder, with the options of the generator
+ * set as System properties for the time of the generation only.
+ */
+class GeneratedProject {
+
+    final File folder;
+
+    GeneratedProject(File folder) {
+        this.folder = folder;
+    }
+
+    static GeneratedProject generate(String spec, Map<String, String> options) throws IOException {
+        GeneratedProject project = new GeneratedProject(Files.createTempDirectory("awscodegen-test").toFile());
+        project.generate(spec(spec), options);
+        return project;
+    }
+
+    static Swagger spec(String spec) {
+        return new SwaggerParser().read(GeneratedProject.class.getResource("/" + spec).getFile());
+    }
+
+    /**
+     * Generates the spec into the folder of the project again, over the files of the previous runs.
+     */
+    void generate(Swagger swagger, Map<String, String> options) {
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            System.setProperty(option.getKey(), option.getValue());
+        }
+        try {
+            AwscodegenGenerator config = new AwscodegenGenerator();
+            config.setOutputDir(folder.getAbsolutePath());
+            new DefaultGenerator()
+                    .opts(new ClientOptInput().opts(new ClientOpts()).swagger(swagger).config(config))
+                    .generate();
+        } finally {
+            for (String option : options.keySet()) {
+                System.clearProperty(option);
+            }
+        }
+    }
+
+    File file(String path) {
+        return new File(folder, path);
+    }
+
+    String read(String path) throws IOException {
+        return new String(Files.readAllBytes(file(path).toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Installs src/test/resources/fake-dynamoose.js as the dynamoose module of the project, its tables are in memory
+     * and it records the requests sent to them.
+     */
+    void installFakeDynamoose() throws IOException {
+        installFakeDynamoose(folder);
+    }
+
+    static void installFakeDynamoose(File folder) throws IOException {
+        File module = new File(folder, "node_modules/dynamoose/index.js");
+        module.getParentFile().mkdirs();
+        InputStream fake = GeneratedProject.class.getResourceAsStream("/fake-dynamoose.js");
+        try {
+            Files.copy(fake, module.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            fake.close();
+        }
+    }
+
+    /**
+     * Runs a script in the folder of the project.
+     */
+    Result node(String script) throws IOException {
+        return node(folder, script);
+    }
+
+    /**
+     * Invokes a Lambda handler of the project, like "index.handler", with the events one after the other and
+     * returns `{responses, calls, output}`: the responses, or `{error}` for failed invocations, the requests the
+     * fake dynamoose got and what node printed.  The setup script runs first, with the fake as `dynamoose`.
+     * Events are expressions that may use the `responses` so far.
+     */
+    JsonNode invoke(String handler, String setup, String... events) throws IOException {
+        installFakeDynamoose();
+        int dot = handler.lastIndexOf('.');
+        StringBuilder script = new StringBuilder("'use strict';\n")
+                .append("const dynamoose = require('dynamoose');\n")
+                .append(setup).append('\n')
+                .append("const handler = require('./").append(handler.substring(0, dot)).append("').")
+                .append(handler.substring(dot + 1)).append(";\n")
+                .append("const responses = [];\n")
+                .append("const events = [\n");
+        for (String event : events) {
+            script.append("  () => (").append(event).append("),\n");
+        }
+        script.append("];\n")
+                .append("const next = (i) => {\n")
+                .append("  if (i === events.length) {\n")
+                .append("    const result = {responses: responses, calls: dynamoose.calls};\n")
+                .append("    require('fs').writeFileSync('invocations.json', JSON.stringify(result));\n")
+                .append("    return;\n")
+                .append("  }\n")
+                .append("  handler(events[i](), {awsRequestId: `request-${i}`}, (err, response) => {\n")
+                .append("    responses.push(err ? {error: err.message} : response);\n")
+                .append("    next(i + 1);\n")
+                .append("  });\n")
+                .append("};\n")
+                .append("next(0);\n");
+        Result result = node(script.toString());
+        if (result.exitCode != 0) {
+            throw new IOException(script + result.output);
+        }
+        // the generated modules log to stdout, so the result goes to a file.
+        ObjectNode invocations = (ObjectNode) Json.mapper().readTree(file("invocations.json"));
+        return invocations.put("output", result.output);
+    }
+
+    void delete() throws IOException {
+        delete(folder);
+    }
+
+    static void delete(File folder) throws IOException {
+        if (!folder.exists()) {
+            return;
+        }
+        Files.walkFileTree(folder.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Generates a project with the command line of swagger-codegen in another JVM, for the output of the generator.
+     * The options are passed as System properties of that JVM.
+     */
+    static Result cli(String spec, File folder, Map<String, String> options) throws IOException {
+        List<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            command.add("-D" + option.getKey() + "=" + option.getValue());
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("io.swagger.codegen.Codegen");
+        command.add("-l");
+        command.add("aws-server");
+        command.add("-i");
+        command.add(GeneratedProject.class.getResource("/" + spec).getFile());
+        command.add("-o");
+        command.add(folder.getAbsolutePath());
+        return run(new ProcessBuilder(command));
+    }
+
+    /**
+     * Whether node can be run, the checks that load the generated JavaScript are skipped without it.
+     */
+    static boolean hasNode() {
+        try {
+            return node(new File("."), "process.exit(0)").exitCode == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs a script with `node -e` in a folder, the metrics of the generated modules are not flushed meanwhile.
+     */
+    static Result node(File folder, String script) throws IOException {
+        List<String> command = new ArrayList<String>();
+        command.add("node");
+        command.add("-e");
+        command.add(script);
+        ProcessBuilder builder = new ProcessBuilder(command).directory(folder);
+        builder.environment().put("METRICS_FLUSH_INTERVAL_MS", "3600000");
+        return run(builder);
+    }
+
+    private static Result run(ProcessBuilder builder) throws IOException {
+        Process process = builder.redirectErrorStream(true).start();
+        InputStream output = process.getInputStream();
+        Scanner scanner = new Scanner(output, "UTF-8").useDelimiter("\\A");
+        String text = scanner.hasNext() ? scanner.next() : "";
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        return new Result(process.exitValue(), text);
+    }
+
+    static final class Result {
+
+        final int exitCode;
+        final String output;
+
+        Result(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package in.gauravlanjekar.awscodegen;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+
+/**
+ * The daemon only reads and writes inside its root and answers every request on its own line.
+ */
+public class GeneratorDaemonTest extends TestCase {
+
+    private File root;
+
+    @Override
+    protected void setUp() throws IOException {
+        root = Files.createTempDirectory("awscodegen-daemon").toFile().getCanonicalFile();
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        GeneratedProject.delete(root);
+    }
+
+    public void testPathsInsideTheRootAreResolved() throws IOException {
+        assertEquals(new File(root, "api.yaml").getPath(), GeneratorDaemon.inside(root, "api.yaml"));
+        assertEquals(new File(root, "out").getPath(), GeneratorDaemon.inside(root, "generated/../out"));
+        assertEquals(root.getPath(), GeneratorDaemon.inside(root, "."));
+        assertEquals(new File(root, "api.yaml").getPath(),
+                GeneratorDaemon.inside(root, new File(root, "api.yaml").getPath()));
+    }
+
+    public void testPathsOutsideTheRootAreRejected() throws IOException {
+        assertOutside("../api.yaml");
+        assertOutside("generated/../../api.yaml");
+        assertOutside(new File(root.getParentFile(), "api.yaml").getPath());
+        // a sibling folder that starts with the name of the root.
+        assertOutside("../" + root.getName() + "-other/api.yaml");
+    }
+
+    public void testSymbolicLinksOutOfTheRootAreRejected() throws IOException {
+        File outside = Files.createTempDirectory("awscodegen-outside").toFile();
+        try {
+            Files.createSymbolicLink(new File(root, "link").toPath(), outside.toPath());
+            assertOutside("link");
+            assertOutside("link/api.yaml");
+        } catch (UnsupportedOperationException e) {
+            // no symbolic links on this file system.
+        } finally {
+            GeneratedProject.delete(outside);
+        }
+    }
+
+    public void testRequestsAreAnswered() throws Exception {
+        Files.copy(GeneratedProject.class.getResourceAsStream("/petstore.yaml"), new File(root, "api.yaml").toPath());
+        final int port = freePort();
+        Thread server = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    new GeneratorDaemon(null).serve(port, root);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        server.setDaemon(true);
+        server.start();
+
+        assertTrue(request(port, "api.yaml generated").startsWith("OK "));
+        assertTrue(new File(root, "generated/controllers/Pets.js").exists());
+        assertNull("renderThreads is passed per run", System.getProperty("renderThreads"));
+        assertTrue(request(port, "api.yaml ../generated").startsWith("ERROR ../generated is outside of "));
+        assertEquals("ERROR expected <spec> <output dir>", request(port, "api.yaml"));
+    }
+
+    private void assertOutside(String path) throws IOException {
+        try {
+            GeneratorDaemon.inside(root, path);
+            fail(path + " is outside of the root");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(path + " is outside of "));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Sends a request line and returns the answer, once the daemon listens.
+     */
+    private static String request(int port, String line) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                try {
+                    PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8"), true);
+                    out.println(line);
+                    return new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8")).readLine();
+                } finally {
+                    socket.close();
+                }
+            } catch (ConnectException e) {
+                if (attempt == 50) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+}
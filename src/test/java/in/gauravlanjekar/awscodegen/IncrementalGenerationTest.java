@@ -0,0 +1,57 @@
+package in.gauravlanjekar.awscodegen;
+
+import io.swagger.models.Swagger;
+import io.swagger.models.properties.StringProperty;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Incremental runs only render the files whose spec fragment changed, the api files of a tag depend on the models
+ * its operations reach.
+ */
+public class IncrementalGenerationTest extends TestCase {
+
+    private static final Map<String, String> OPTIONS = Collections.singletonMap("incremental", "");
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", OPTIONS);
+        for (String path : new String[] {"controllers/Pets.js", "service/PetsService.js", "controllers/Toys.js",
+                "service/ToysService.js", "models/interfaces/Pet_def.js", "models/interfaces/Toy_def.js"}) {
+            assertTrue(path, project.file(path).setLastModified(1000));
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testUnchangedSpecRendersNothing() {
+        project.generate(GeneratedProject.spec("petstore.yaml"), OPTIONS);
+        assertUntouched("controllers/Pets.js", "controllers/Toys.js", "models/interfaces/Toy_def.js");
+    }
+
+    public void testChangedModelRendersTheTagsThatUseIt() {
+        Swagger swagger = GeneratedProject.spec("petstore.yaml");
+        swagger.getDefinitions().get("Toy").getProperties().put("color", new StringProperty());
+        project.generate(swagger, OPTIONS);
+        assertUntouched("controllers/Pets.js", "service/PetsService.js", "models/interfaces/Pet_def.js");
+        assertFalse(project.file("controllers/Toys.js").lastModified() == 1000);
+        assertFalse(project.file("service/ToysService.js").lastModified() == 1000);
+        assertFalse(project.file("models/interfaces/Toy_def.js").lastModified() == 1000);
+    }
+
+    private void assertUntouched(String... paths) {
+        for (String path : paths) {
+            File file = project.file(path);
+            assertEquals(path, 1000, file.lastModified());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package in.gauravlanjekar.awscodegen;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class IncrementalManifestTest extends TestCase {
+
+    private File folder;
+    private String filename;
+
+    @Override
+    protected void setUp() throws IOException {
+        folder = Files.createTempDirectory("awscodegen-manifest").toFile();
+        filename = new File(folder, "controllers/Pets.js").getPath();
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        GeneratedProject.delete(folder);
+    }
+
+    public void testFilesOfTheFirstRunAreGenerated() {
+        IncrementalManifest manifest = new IncrementalManifest(folder, "options");
+        manifest.track("apis/Pets", filename, "fragment", "template");
+        assertFalse(manifest.isUpToDate(filename));
+    }
+
+    public void testUnchangedFilesAreUpToDate() throws IOException {
+        generate("options", "fragment", "template", "contents");
+        IncrementalManifest manifest = new IncrementalManifest(folder, "options");
+        manifest.track("apis/Pets", filename, "fragment", "template");
+        assertTrue(manifest.isUpToDate(filename));
+    }
+
+    public void testChangedInputsAreGeneratedAgain() throws IOException {
+        generate("options", "fragment", "template", "contents");
+        assertFalse(track("options", "other fragment", "template").isUpToDate(filename));
+        assertFalse(track("options", "fragment", "other template").isUpToDate(filename));
+        assertFalse(track("other options", "fragment", "template").isUpToDate(filename));
+    }
+
+    public void testEditedFilesAreGeneratedAgain() throws IOException {
+        generate("options", "fragment", "template", "contents");
+        write("edited");
+        assertFalse(track("options", "fragment", "template").isUpToDate(filename));
+    }
+
+    public void testDeletedFilesAreGeneratedAgain() throws IOException {
+        generate("options", "fragment", "template", "contents");
+        assertTrue(new File(filename).delete());
+        assertFalse(track("options", "fragment", "template").isUpToDate(filename));
+    }
+
+    public void testUnreadableManifestIsIgnored() throws IOException {
+        generate("options", "fragment", "template", "contents");
+        Files.write(new File(folder, IncrementalManifest.FILENAME).toPath(), "{".getBytes(StandardCharsets.UTF_8));
+        assertFalse(track("options", "fragment", "template").isUpToDate(filename));
+    }
+
+    public void testUnchangedManifestIsNotWrittenAgain() throws IOException {
+        generate("options", "fragment", "template", "contents");
+        File file = new File(folder, IncrementalManifest.FILENAME);
+        assertTrue(file.setLastModified(1000));
+        track("options", "fragment", "template").save();
+        assertEquals(1000, file.lastModified());
+    }
+
+    public void testHashesSeparateTheParts() {
+        assertEquals(IncrementalManifest.hash("a", "b"), IncrementalManifest.hash("a", "b"));
+        assertFalse(IncrementalManifest.hash("a", "b").equals(IncrementalManifest.hash("ab")));
+        assertFalse(IncrementalManifest.hash("ab", "").equals(IncrementalManifest.hash("a", "b")));
+    }
+
+    /**
+     * A run that tracks the file and writes it before saving the manifest, as the generator does.
+     */
+    private void generate(String options, String fragment, String template, String contents) throws IOException {
+        IncrementalManifest manifest = track(options, fragment, template);
+        write(contents);
+        manifest.save();
+    }
+
+    private IncrementalManifest track(String options, String fragment, String template) {
+        IncrementalManifest manifest = new IncrementalManifest(folder, options);
+        manifest.track("apis/Pets", filename, fragment, template);
+        return manifest;
+    }
+
+    private void write(String contents) throws IOException {
+        File file = new File(filename);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
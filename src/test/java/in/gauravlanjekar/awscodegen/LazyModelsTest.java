@@ -0,0 +1,50 @@
+package in.gauravlanjekar.awscodegen;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * The dynamoose models are created the first time a service uses them.
+ */
+public class LazyModelsTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.<String, String>emptyMap());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testDefinitionsAreRequiredByTheirModel() throws IOException {
+        String wrapper = project.read("models/dynamoose-wrapper.js");
+        assertTrue(wrapper, wrapper.contains(
+                "lazyModel('Pet', process.env.Pet_TABLE, () => require('./interfaces/Pet_def'));"));
+        assertTrue(wrapper, wrapper.contains(
+                "lazyModel('Toy', process.env.Toy_TABLE, () => require('./interfaces/Toy_def'));"));
+    }
+
+    public void testModelsAreCreatedOnFirstUse() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        project.installFakeDynamoose();
+        GeneratedProject.Result result = project.node("process.env.Pet_TABLE = 'pets';\n"
+                + "const dynamoose = require('dynamoose');\n"
+                + "const models = require('./models/dynamoose-wrapper.js');\n"
+                + "const before = dynamoose.models.slice();\n"
+                + "const pet = models.Pet;\n"
+                + "const same = models.Pet === pet;\n"
+                + "const loaded = Object.keys(require.cache).filter(file => file.endsWith('_def.js'))\n"
+                + "  .map(file => file.substring(file.lastIndexOf('/') + 1));\n"
+                + "process.stdout.write(JSON.stringify([before, dynamoose.models, same, loaded]));");
+        assertEquals(result.output, 0, result.exitCode);
+        assertEquals("[[],[\"pets\"],true,[\"Pet_def.js\"]]", result.output);
+    }
+}
@@ -0,0 +1,143 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Operation;
+import io.swagger.models.RefModel;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The load test events are valid requests of their operations, made up from the parameters and models of the spec.
+ */
+public class LoadTestEventBuilderTest extends TestCase {
+
+    private Swagger swagger;
+    private LoadTestEventBuilder builder;
+
+    @Override
+    protected void setUp() {
+        swagger = new SwaggerParser().read(getClass().getResource("/petstore.yaml").getFile());
+        builder = new LoadTestEventBuilder(swagger.getDefinitions());
+    }
+
+    public void testPathParametersAreFilledIn() {
+        Map<String, Object> event = builder.build("/pets/{id}/toys/{toyId}", HttpMethod.GET,
+                swagger.getPath("/pets/{id}/toys/{toyId}").getGet());
+        assertEquals("/pets/{id}/toys/{toyId}", event.get("resource"));
+        assertEquals("/pets/string/toys/1", event.get("path"));
+        assertEquals("GET", event.get("httpMethod"));
+        assertEquals("{id=string, toyId=1}", event.get("pathParameters").toString());
+        // the header has a minLength of 8.
+        assertEquals("stringxx", ((Map<?, ?>) event.get("headers")).get("X-Trace-Id"));
+        assertNull(event.get("queryStringParameters"));
+        assertNull(event.get("body"));
+    }
+
+    public void testBodiesRespectTheModel() {
+        Map<String, Object> event = builder.build("/pets", HttpMethod.POST, swagger.getPath("/pets").getPost());
+        assertEquals("{\"id\":\"string\",\"owner\":\"string\",\"name\":\"string\",\"version\":1,\"age\":0}",
+                event.get("body"));
+        assertNull(event.get("pathParameters"));
+    }
+
+    public void testExamplesWin() {
+        QueryParameter owner = new QueryParameter().name("owner").type("string");
+        owner.setVendorExtension("x-example", "bob");
+        QueryParameter limit = new QueryParameter().name("limit").type("integer");
+        limit.setDefault(25);
+        BodyParameter body = new BodyParameter().name("body").schema(new RefModel("Pet"))
+                .example("application/json", "{\"id\":\"a\"}");
+        Map<String, Object> event = builder.build("/pets", HttpMethod.POST,
+                new Operation().parameter(owner).parameter(limit).parameter(body));
+        assertEquals("{owner=bob, limit=25}", event.get("queryStringParameters").toString());
+        assertEquals("{\"id\":\"a\"}", event.get("body"));
+    }
+
+    public void testNumbersRespectTheirBounds() {
+        QueryParameter fraction = new QueryParameter().name("fraction").type("integer");
+        fraction.setMinimum(new BigDecimal("1.5"));
+        QueryParameter exclusive = new QueryParameter().name("exclusive").type("integer");
+        exclusive.setMinimum(new BigDecimal(1));
+        exclusive.setExclusiveMinimum(true);
+        QueryParameter negative = new QueryParameter().name("negative").type("integer");
+        negative.setMaximum(new BigDecimal(-3));
+        QueryParameter below = new QueryParameter().name("below").type("number");
+        below.setMaximum(new BigDecimal(0));
+        below.setExclusiveMaximum(true);
+        Map<String, Object> event = builder.build("/numbers", HttpMethod.GET, new Operation()
+                .parameter(fraction).parameter(exclusive).parameter(negative).parameter(below));
+        assertEquals("{fraction=2, exclusive=2, negative=-3, below=-1.0}",
+                event.get("queryStringParameters").toString());
+    }
+
+    public void testStringsRespectTheirFormatAndLength() {
+        QueryParameter longer = new QueryParameter().name("longer").type("string");
+        longer.setMinLength(10);
+        QueryParameter shorter = new QueryParameter().name("shorter").type("string");
+        shorter.setMaxLength(3);
+        QueryParameter ids = new QueryParameter().name("ids").type("array").items(new StringProperty())
+                .collectionFormat("pipes");
+        ids.setMinItems(2);
+        Map<String, Object> event = builder.build("/strings", HttpMethod.GET, new Operation()
+                .parameter(longer).parameter(shorter).parameter(ids)
+                .parameter(new QueryParameter().name("day").type("string").format("date")));
+        assertEquals("{longer=stringxxxx, shorter=str, ids=string|string, day=2017-01-01}",
+                event.get("queryStringParameters").toString());
+    }
+
+    public void testValuesThatWouldBeRejectedAreLeftOut() {
+        QueryParameter code = new QueryParameter().name("code").type("string");
+        code.setPattern("^[A-Z]{3}$");
+        QueryParameter cursor = new QueryParameter().name("cursor").type("string");
+        cursor.setVendorExtension("x-aws-pagination-param", true);
+        Map<String, Object> event = builder.build("/codes", HttpMethod.GET,
+                new Operation().parameter(code).parameter(cursor));
+        assertNull(event.get("queryStringParameters"));
+    }
+
+    public void testRecursiveModelsEnd() {
+        Model node = new ModelImpl().type("object").property("parent", new RefProperty("Node"));
+        LoadTestEventBuilder recursive = new LoadTestEventBuilder(Collections.singletonMap("Node", node));
+        Map<String, Object> event = recursive.build("/nodes", HttpMethod.POST,
+                new Operation().parameter(new BodyParameter().name("body").schema(new RefModel("Node"))));
+        assertEquals("{}", event.get("body"));
+    }
+
+    public void testGeneratedEventsPassTheValidation() throws IOException {
+        GeneratedProject project = GeneratedProject.generate("petstore.yaml",
+                Collections.singletonMap("handlerMode", "direct"));
+        try {
+            JsonNode events = Json.mapper().readTree(project.file("loadtest/events.json"));
+            assertEquals(10, events.size());
+            if (!GeneratedProject.hasNode()) {
+                return;
+            }
+            String[] invocations = new String[events.size()];
+            for (int i = 0; i < invocations.length; i++) {
+                invocations[i] = "require('./loadtest/events.json')[" + i + "].event";
+            }
+            JsonNode responses = project.invoke("index.handler",
+                    "process.env.Pet_TABLE = 'pets';\nprocess.env.Toy_TABLE = 'toys';", invocations).get("responses");
+            for (int i = 0; i < invocations.length; i++) {
+                assertFalse(events.get(i).get("operationId") + ": " + responses.get(i),
+                        responses.get(i).get("statusCode").asInt() == 400);
+            }
+        } finally {
+            project.delete();
+        }
+    }
+}
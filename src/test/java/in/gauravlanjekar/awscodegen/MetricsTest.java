@@ -0,0 +1,91 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * utils/metrics.js writes the metrics of an invocation before it returns, unless they are buffered on purpose.
+ */
+public class MetricsTest extends TestCase {
+
+    // keeps the metric lines written so far, the third event records them as a call of the fake.
+    private static final String CAPTURE = "process.env.Pet_TABLE = 'pets';\n"
+            + "dynamoose.put('pets', [{id: '1', name: 'Rex'}]);\n"
+            + "global.metricLines = [];\n"
+            + "const write = process.stdout.write.bind(process.stdout);\n"
+            + "process.stdout.write = (line) => {\n"
+            + "  if (String(line).indexOf('\"_aws\"') >= 0) {\n"
+            + "    metricLines.push(JSON.parse(line));\n"
+            + "  }\n"
+            + "  return write(line);\n"
+            + "};\n";
+    private static final String GET_PET = "{httpMethod: 'GET', resource: '/pets/{id}', pathParameters: {id: '1'}}";
+    private static final String RECORD_LINES = "(dynamoose.calls.push({operation: 'metrics', params: metricLines.slice()}),"
+            + " {httpMethod: 'GET', path: '/cats'})";
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testEveryInvocationIsFlushed() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode lines = metricLines(project.invoke("index.handler",
+                CAPTURE + "delete process.env.METRICS_FLUSH_INTERVAL_MS;", GET_PET, GET_PET, RECORD_LINES));
+        assertEquals(lines.toString(), 2, lines.size());
+        assertEquals("getPet", lines.get(0).get("operationId").asText());
+        assertEquals("[1]", lines.get(0).get("ColdStart").toString());
+        assertEquals("[0]", lines.get(1).get("ColdStart").toString());
+        assertEquals("[0]", lines.get(1).get("Errors").toString());
+        assertEquals(1, lines.get(1).get("Latency").size());
+    }
+
+    public void testIntervalBuffersTheValues() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode lines = metricLines(project.invoke("index.handler",
+                CAPTURE + "process.env.METRICS_FLUSH_INTERVAL_MS = '60000';", GET_PET, GET_PET, RECORD_LINES));
+        assertEquals(0, lines.size());
+    }
+
+    public void testMetricsCanBeTurnedOff() throws IOException {
+        GeneratedProject plain = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("nometrics", ""));
+        try {
+            assertFalse(plain.file("utils/metrics.js").exists());
+            for (String file : new String[] {"services.js", "service/PetsService.js", "utils/dynamodb.js",
+                    "utils/cache.js", "controllers/Pets.js"}) {
+                assertFalse(file, plain.read(file).contains("metrics"));
+            }
+            if (!GeneratedProject.hasNode()) {
+                return;
+            }
+            plain.installFakeDynamoose();
+            GeneratedProject.Result result = plain.node("require('./services');");
+            assertEquals(result.output, 0, result.exitCode);
+        } finally {
+            plain.delete();
+        }
+    }
+
+    private static JsonNode metricLines(JsonNode invocations) {
+        for (JsonNode call : invocations.get("calls")) {
+            if ("metrics".equals(call.get("operation").asText())) {
+                return call.get("params");
+            }
+        }
+        throw new AssertionError(invocations.toString());
+    }
+}
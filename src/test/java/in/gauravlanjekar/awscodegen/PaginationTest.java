@@ -0,0 +1,54 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * List operations return one page of items at a time and the cursor of the next page in X-Next-Cursor.
+ */
+public class PaginationTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testParametersAreAdded() throws IOException {
+        String swagger = project.read("api/swagger.yaml");
+        assertTrue(swagger, swagger.contains("name: \"cursor\""));
+        assertTrue(swagger, swagger.contains("X-Next-Cursor"));
+    }
+
+    public void testCursorsWalkThroughThePages() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode invocations = project.invoke("index.handler",
+                "process.env.Pet_TABLE = 'pets';\n"
+                        + "dynamoose.put('pets', [{id: '1', name: 'Rex'}, {id: '2', name: 'Tom'},"
+                        + " {id: '3', name: 'Kit'}]);",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {limit: '2'}}",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {limit: '2',"
+                        + " cursor: responses[0].headers['X-Next-Cursor']}}",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {cursor: 'not a cursor'}}");
+        JsonNode responses = invocations.get("responses");
+        assertEquals("[{\"id\":\"1\",\"name\":\"Rex\"},{\"id\":\"2\",\"name\":\"Tom\"}]",
+                responses.get(0).get("body").asText());
+        assertEquals("[{\"id\":\"3\",\"name\":\"Kit\"}]", responses.get(1).get("body").asText());
+        assertFalse(responses.get(1).get("headers").has("X-Next-Cursor"));
+        assertEquals(400, responses.get(2).get("statusCode").asInt());
+        JsonNode calls = invocations.get("calls");
+        assertEquals(2, calls.get(0).get("params").get("Limit").asInt());
+        assertEquals("{\"id\":\"2\"}", calls.get(1).get("params").get("ExclusiveStartKey").toString());
+    }
+}
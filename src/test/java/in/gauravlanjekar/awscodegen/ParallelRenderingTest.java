@@ -0,0 +1,136 @@
+package in.gauravlanjekar.awscodegen;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Files rendered on the pool are the same as the ones the generator renders itself, the ones a failed run did not
+ * write are not left behind empty.
+ */
+public class ParallelRenderingTest extends TestCase {
+
+    public void testOutputIsTheSameAsWithoutThreads() throws IOException {
+        GeneratedProject sequential = GeneratedProject.generate("petstore.yaml", Collections.<String, String>emptyMap());
+        GeneratedProject parallel = GeneratedProject.generate("petstore.yaml",
+                Collections.singletonMap("renderThreads", "2"));
+        try {
+            Map<String, byte[]> expected = files(sequential.folder);
+            Map<String, byte[]> actual = files(parallel.folder);
+            assertEquals(expected.keySet(), actual.keySet());
+            for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+                assertTrue(file.getKey(), Arrays.equals(file.getValue(), actual.get(file.getKey())));
+            }
+        } finally {
+            sequential.delete();
+            parallel.delete();
+        }
+    }
+
+    public void testFailedRenderingLeavesNoEmptyFiles() throws IOException {
+        File folder = Files.createTempDirectory("awscodegen-render").toFile();
+        try {
+            AwscodegenGenerator config = new AwscodegenGenerator();
+            config.setOutputDir(folder.getAbsolutePath());
+            File created = new File(folder, "controllers/Pets.js");
+            File existing = new File(folder, "controllers/Toys.js");
+            existing.getParentFile().mkdirs();
+            Files.write(existing.toPath(), "previous run".getBytes(StandardCharsets.UTF_8));
+
+            ParallelRenderer renderer = new ParallelRenderer(config, 2, null);
+            renderer.register(created.getPath(), "controller.mustache", failing());
+            renderer.register(existing.getPath(), "controller.mustache", failing());
+            assertTrue(renderer.submit(created.getPath()));
+            assertTrue(renderer.submit(existing.getPath()));
+            try {
+                renderer.shutdown();
+                fail("the rendering failed");
+            } catch (RuntimeException e) {
+                assertFalse(created.exists());
+                assertEquals("previous run", new String(Files.readAllBytes(existing.toPath()), StandardCharsets.UTF_8));
+            }
+        } finally {
+            GeneratedProject.delete(folder);
+        }
+    }
+
+    public void testAbortedRenderingLeavesNoEmptyFiles() throws IOException {
+        File folder = Files.createTempDirectory("awscodegen-render").toFile();
+        try {
+            AwscodegenGenerator config = new AwscodegenGenerator();
+            config.setOutputDir(folder.getAbsolutePath());
+            File created = new File(folder, "controllers/Pets.js");
+            ParallelRenderer renderer = new ParallelRenderer(config, 1, null);
+            renderer.register(created.getPath(), "controller.mustache", blocking());
+            assertTrue(renderer.submit(created.getPath()));
+            assertTrue(created.exists());
+            renderer.abort();
+            assertFalse(created.exists());
+        } finally {
+            GeneratedProject.delete(folder);
+        }
+    }
+
+    /**
+     * Template data that fails to render.
+     */
+    private static Map<String, Object> failing() {
+        return new HashMap<String, Object>() {
+            @Override
+            public Object get(Object key) {
+                throw new IllegalStateException("cannot render " + key);
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+        };
+    }
+
+    /**
+     * Template data that renders until the thread rendering it is interrupted.
+     */
+    private static Map<String, Object> blocking() {
+        return new HashMap<String, Object>() {
+            @Override
+            public Object get(Object key) {
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                    return null;
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException("interrupted while rendering " + key, e);
+                }
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+        };
+    }
+
+    private static Map<String, byte[]> files(final File folder) throws IOException {
+        final Map<String, byte[]> files = new TreeMap<String, byte[]>();
+        Files.walkFileTree(folder.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                files.put(folder.toPath().relativize(file).toString(), Files.readAllBytes(file));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+}
@@ -0,0 +1,64 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * x-aws-parallel-scan operations read the whole table with concurrent segments.
+ */
+public class ParallelScanTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testScansAreNeitherPaginatedNorQueries() throws IOException {
+        String service = project.read("service/ToysService.js");
+        assertTrue(service, service.contains("return scan.parallelScan(process.env.Toy_TABLE,\n"
+                + "          parseInt(process.env.PARALLEL_SCAN_SEGMENTS, 10) || 4, filters, onPage);"));
+        String swagger = project.read("api/swagger.yaml");
+        String export = swagger.substring(swagger.indexOf("  /export:"));
+        assertFalse(export, export.substring(0, export.indexOf("\n  /", 1)).contains("cursor"));
+    }
+
+    public void testEverySegmentIsReadToTheEnd() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode invocations = project.invoke("index.handler", "process.env.Toy_TABLE = 'toys';\n"
+                        + "const toys = [];\n"
+                        + "for (let i = 0; i < 21; i++) toys.push({toyId: i, label: `toy ${i}`});\n"
+                        + "dynamoose.put('toys', toys);",
+                "{httpMethod: 'GET', resource: '/export'}");
+        JsonNode response = invocations.get("responses").get(0);
+        assertEquals(response.toString(), 200, response.get("statusCode").asInt());
+        Set<Integer> toyIds = new HashSet<Integer>();
+        for (JsonNode toy : Json.mapper().readTree(response.get("body").asText())) {
+            toyIds.add(toy.get("toyId").asInt());
+        }
+        assertEquals(21, toyIds.size());
+        Set<Integer> segments = new HashSet<Integer>();
+        for (JsonNode call : invocations.get("calls")) {
+            assertEquals("scan", call.get("operation").asText());
+            assertEquals(4, call.get("params").get("TotalSegments").asInt());
+            segments.add(call.get("params").get("Segment").asInt());
+        }
+        assertEquals(4, segments.size());
+        // 6, 5, 5 and 5 items in pages of 2.
+        assertEquals(12, invocations.get("calls").size());
+    }
+}
@@ -0,0 +1,75 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.models.Path;
+import io.swagger.parser.SwaggerParser;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Updates write only the attributes of the request with UpdateItem, conditional on the version of the item.
+ */
+public class PartialUpdateTest extends TestCase {
+
+    private static final String SETUP = "process.env.Pet_TABLE = 'pets';\n"
+            + "dynamoose.put('pets', [{id: '1', owner: 'alice', name: 'Rex', age: 3, version: 1}]);";
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testPutsGetAPatch() {
+        Path pet = new SwaggerParser().read(project.file("api/swagger.yaml").getPath()).getPath("/pets/{id}");
+        assertEquals("updatePet", pet.getPut().getOperationId());
+        assertEquals("patchPet", pet.getPatch().getOperationId());
+    }
+
+    public void testOnlyTheGivenAttributesAreWritten() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode invocations = project.invoke("index.handler", SETUP,
+                "{httpMethod: 'PATCH', resource: '/pets/{id}', pathParameters: {id: '1'},"
+                        + " body: '{\"name\": \"Max\", \"age\": null}'}",
+                "(dynamoose.calls.push({operation: 'items', params: dynamoose.items('pets')}),"
+                        + " {httpMethod: 'DELETE', resource: '/pets/{id}', pathParameters: {id: '1'}})");
+        JsonNode responses = invocations.get("responses");
+        assertEquals(200, responses.get(0).get("statusCode").asInt());
+        JsonNode update = invocations.get("calls").get(0);
+        assertEquals("updateItem", update.get("operation").asText());
+        assertEquals("SET #a0 = :a0, #v = if_not_exists(#v, :zero) + :one REMOVE #a1",
+                update.get("params").get("UpdateExpression").asText());
+        assertEquals("attribute_exists(#k)", update.get("params").get("ConditionExpression").asText());
+        assertEquals("[{\"id\":\"1\",\"owner\":\"alice\",\"name\":\"Max\",\"version\":2}]",
+                invocations.get("calls").get(1).get("params").toString());
+
+        assertTrue(responses.get(1).toString(), responses.get(1).get("statusCode").asInt() < 300);
+        assertEquals("deleteItem", invocations.get("calls").get(2).get("operation").asText());
+    }
+
+    public void testStaleVersionsAndMissingItemsAreRejected() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode responses = project.invoke("index.handler", SETUP,
+                "{httpMethod: 'PATCH', resource: '/pets/{id}', pathParameters: {id: '1'},"
+                        + " body: '{\"name\": \"Max\", \"version\": 1}'}",
+                "{httpMethod: 'PATCH', resource: '/pets/{id}', pathParameters: {id: '1'},"
+                        + " body: '{\"name\": \"Tom\", \"version\": 1}'}",
+                "{httpMethod: 'PUT', resource: '/pets/{id}', pathParameters: {id: '2'},"
+                        + " body: '{\"id\": \"2\", \"name\": \"Tom\"}'}").get("responses");
+        assertEquals(200, responses.get(0).get("statusCode").asInt());
+        assertEquals(409, responses.get(1).get("statusCode").asInt());
+        assertEquals(404, responses.get(2).get("statusCode").asInt());
+    }
+}
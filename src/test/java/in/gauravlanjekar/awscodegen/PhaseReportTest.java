@@ -0,0 +1,56 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+/**
+ * Reading the spec is reported as the parse phase by the CLI and by the daemon.
+ */
+public class PhaseReportTest extends TestCase {
+
+    private File folder;
+
+    @Override
+    protected void setUp() throws IOException {
+        folder = Files.createTempDirectory("awscodegen-report").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        System.clearProperty("phaseReport");
+        GeneratedProject.delete(folder);
+    }
+
+    public void testCliReportsReadingTheSpec() throws IOException {
+        GeneratedProject.Result result = GeneratedProject.cli("petstore.yaml", folder,
+                Collections.singletonMap("phaseReport", ""));
+        assertEquals(result.output, 0, result.exitCode);
+        assertSpecRead(report());
+    }
+
+    public void testDaemonReportsReadingTheSpec() throws IOException {
+        System.setProperty("phaseReport", "");
+        new GeneratorDaemon(null).generate(GeneratedProject.class.getResource("/petstore.yaml").getFile(),
+                folder.getPath());
+        assertSpecRead(report());
+    }
+
+    private JsonNode report() throws IOException {
+        return Json.mapper().readTree(new File(folder, GenerationReport.FILENAME));
+    }
+
+    private static void assertSpecRead(JsonNode report) {
+        JsonNode parse = report.get("phases").get("parse");
+        assertNotNull(report.toString(), parse);
+        assertTrue(parse.toString(), parse.get("millis").asDouble() > 0);
+        // reading the spec takes longer than the options, the first hook of the generator.
+        assertTrue(parse.toString(), parse.get("millis").asDouble()
+                > report.get("phases").get("processOpts").get("millis").asDouble());
+    }
+}
@@ -0,0 +1,62 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.models.properties.StringProperty;
+import io.swagger.parser.SwaggerParser;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * GET operations marked with x-aws-projection read only the attributes of their fields query parameter.
+ */
+public class ProjectionTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testFieldsAreLimitedToTheAttributesOfTheModel() {
+        QueryParameter fields = null;
+        for (Parameter parameter : new SwaggerParser().read(project.file("api/swagger.yaml").getPath())
+                .getPath("/pets").getGet().getParameters()) {
+            if ("fields".equals(parameter.getName())) {
+                fields = (QueryParameter) parameter;
+            }
+        }
+        assertNotNull(fields);
+        assertFalse(fields.getRequired());
+        assertEquals("csv", fields.getCollectionFormat());
+        assertEquals(Arrays.asList("id", "owner", "name", "version", "age"),
+                ((StringProperty) fields.getItems()).getEnum());
+    }
+
+    public void testOnlyTheFieldsAreRead() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode invocations = project.invoke("index.handler",
+                "process.env.Pet_TABLE = 'pets';\n"
+                        + "dynamoose.put('pets', [{id: '1', owner: 'alice', name: 'Rex', age: 3}]);",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {owner: 'alice', fields: 'name,age'}}",
+                "{httpMethod: 'GET', resource: '/pets', queryStringParameters: {owner: 'alice', fields: 'secret'}}");
+        JsonNode responses = invocations.get("responses");
+        assertEquals(200, responses.get(0).get("statusCode").asInt());
+        assertEquals("[{\"name\":\"Rex\",\"age\":3}]", responses.get(0).get("body").asText());
+        assertEquals("[\"name\",\"age\"]", invocations.get("calls").get(0).get("params").get("Attributes").toString());
+        assertEquals(400, responses.get(1).get("statusCode").asInt());
+        assertEquals(1, invocations.get("calls").size());
+    }
+}
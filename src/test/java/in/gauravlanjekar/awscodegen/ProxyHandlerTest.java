@@ -0,0 +1,66 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * The proxy handler of handlerMode=direct routes API Gateway events to the services without express.
+ */
+public class ProxyHandlerTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("handlerMode", "direct"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testNoExpressAppIsGenerated() {
+        assertFalse(project.file("controllers").exists());
+        assertTrue(project.file("routes.js").exists());
+        assertTrue(project.file("utils/proxy.js").exists());
+    }
+
+    public void testEventsAreRouted() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        JsonNode responses = project.invoke("index.handler",
+                "process.env.Pet_TABLE = 'pets';\n"
+                        + "dynamoose.put('pets', [{id: '1', name: 'Rex'}]);",
+                "{httpMethod: 'GET', resource: '/pets/{id}', pathParameters: {id: '1'}}",
+                "{httpMethod: 'GET', path: '/pets/1'}",
+                "{httpMethod: 'GET', path: '/cats'}",
+                "{httpMethod: 'POST', resource: '/pets', body: '{'}").get("responses");
+        assertEquals(200, responses.get(0).get("statusCode").asInt());
+        assertEquals("{\"id\":\"1\",\"name\":\"Rex\"}", responses.get(0).get("body").asText());
+        assertEquals(responses.get(0).get("body"), responses.get(1).get("body"));
+        assertEquals(404, responses.get(2).get("statusCode").asInt());
+        assertEquals(400, responses.get(3).get("statusCode").asInt());
+    }
+
+    public void testHeadersAreMatchedWhateverTheirCase() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        String routes = project.read("routes.js");
+        assertTrue(routes, routes.contains("const xTraceId = proxy.header(event, 'X-Trace-Id');"));
+        JsonNode responses = project.invoke("index.handler", "process.env.Toy_TABLE = 'toys';",
+                "{httpMethod: 'GET', resource: '/pets/{id}/toys/{toyId}', pathParameters: {id: '1', toyId: '2'},"
+                        + " headers: {'x-trace-id': 'short'}}",
+                "{httpMethod: 'GET', resource: '/pets/{id}/toys/{toyId}', pathParameters: {id: '1', toyId: '2'},"
+                        + " headers: {'X-TRACE-ID': 'long enough'}}").get("responses");
+        assertEquals(400, responses.get(0).get("statusCode").asInt());
+        String errors = responses.get(0).get("body").asText();
+        assertTrue(errors, errors.contains("X-Trace-Id"));
+        assertFalse(responses.get(1).toString(), responses.get(1).get("statusCode").asInt() == 400);
+    }
+}
@@ -0,0 +1,139 @@
+package in.gauravlanjekar.awscodegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.codegen.CodegenParameter;
+import io.swagger.models.Operation;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.QueryParameter;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The compiled checks are run with node, the tests that need it are skipped without.
+ */
+public class RequestValidatorCompilerTest extends TestCase {
+
+    private Swagger swagger;
+    private RequestValidatorCompiler compiler;
+
+    @Override
+    protected void setUp() {
+        swagger = new SwaggerParser().read(getClass().getResource("/petstore.yaml").getFile());
+        compiler = new RequestValidatorCompiler(swagger.getDefinitions());
+    }
+
+    public void testOperationWithoutParametersHasNoChecks() {
+        Operation operation = swagger.getPath("/export").getGet();
+        assertEquals("", compiler.compileOperation(operation, params(operation)));
+        assertEquals("", compiler.compileModule());
+    }
+
+    public void testModelsAreCompiledOnceReferenced() {
+        Operation operation = swagger.getPath("/pets").getPost();
+        String code = compiler.compileOperation(operation, params(operation));
+        assertTrue(code, code.contains("validatePet(body, 'body', errors);"));
+        String module = compiler.compileModule();
+        assertTrue(module, module.contains("function validatePet(value, path, errors) {"));
+        assertFalse(module, module.contains("validateToy"));
+    }
+
+    public void testBodyHasToBeAnObject() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        Operation operation = swagger.getPath("/pets").getPost();
+        JsonNode errors = run(operation, "null", "[]", "'pet'", "{id: 'a', name: 'Rex'}",
+                "{id: 'a', name: '', age: -1}");
+        assertEquals("[\"body is required\"]", errors.get(0).toString());
+        assertEquals("[\"body must be an object\"]", errors.get(1).toString());
+        assertEquals("[\"body must be an object\"]", errors.get(2).toString());
+        assertEquals("[]", errors.get(3).toString());
+        assertEquals("[\"body.name must be at least 1 characters long\",\"body.age must be >= 0\"]",
+                errors.get(4).toString());
+    }
+
+    public void testParametersAcceptStringsAndNativeValues() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        QueryParameter limit = new QueryParameter().name("limit").type("integer");
+        limit.setMinimum(new BigDecimal(1));
+        Operation operation = new Operation()
+                .parameter(limit)
+                .parameter(new QueryParameter().name("ratio").type("number"))
+                .parameter(new QueryParameter().name("deep").type("boolean"));
+        JsonNode errors = run(operation, "'10', '0.5', 'true'", "10, 0.5, false", "undefined, undefined, undefined",
+                "'1.5', 'x', 'yes'", "1.5, Infinity, 1", "0, null, null");
+        assertEquals("[]", errors.get(0).toString());
+        assertEquals("[]", errors.get(1).toString());
+        assertEquals("[]", errors.get(2).toString());
+        assertEquals(3, errors.get(3).size());
+        assertEquals(3, errors.get(4).size());
+        assertEquals("[\"limit must be >= 1\"]", errors.get(5).toString());
+    }
+
+    public void testRequiredParameters() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        Operation operation = swagger.getPath("/pets/{id}/toys/{toyId}").getGet();
+        JsonNode errors = run(operation, "'a', '1', undefined", "'a', undefined, undefined", "'a', 'one', undefined",
+                "'a', '1', 'short'");
+        assertEquals("[]", errors.get(0).toString());
+        assertEquals("[\"toyId is required\"]", errors.get(1).toString());
+        assertEquals("[\"toyId must be an integer\"]", errors.get(2).toString());
+        assertEquals("[\"X-Trace-Id must be at least 8 characters long\"]", errors.get(3).toString());
+    }
+
+    private static List<CodegenParameter> params(Operation operation) {
+        List<CodegenParameter> params = new ArrayList<CodegenParameter>();
+        for (Parameter parameter : operation.getParameters()) {
+            CodegenParameter param = new CodegenParameter();
+            param.baseName = parameter.getName();
+            param.paramName = parameter.getName().replace("-", "");
+            param.isBodyParam = "body".equals(parameter.getIn());
+            param.isPathParam = "path".equals(parameter.getIn());
+            param.isQueryParam = "query".equals(parameter.getIn());
+            param.isHeaderParam = "header".equals(parameter.getIn());
+            params.add(param);
+        }
+        return params;
+    }
+
+    /**
+     * The error messages of the compiled operation for every list of arguments.
+     */
+    private JsonNode run(Operation operation, String... calls) throws IOException {
+        List<CodegenParameter> params = params(operation);
+        String code = compiler.compileOperation(operation, params);
+        StringBuilder script = new StringBuilder("'use strict';\n").append(compiler.compileModule());
+        script.append("const check = (");
+        for (int i = 0; i < params.size(); i++) {
+            script.append(i == 0 ? "" : ", ").append(params.get(i).paramName);
+        }
+        script.append(") => {\n  const errors = [];\n").append(code);
+        script.append("  return errors.map(e => e.message);\n};\n");
+        script.append("process.stdout.write(JSON.stringify([");
+        for (String call : calls) {
+            script.append("check(").append(call).append("), ");
+        }
+        script.append("]));\n");
+        File folder = Files.createTempDirectory("awscodegen-validator").toFile();
+        try {
+            GeneratedProject.Result result = GeneratedProject.node(folder, script.toString());
+            assertEquals(script + result.output, 0, result.exitCode);
+            return Json.mapper().readTree(result.output);
+        } finally {
+            GeneratedProject.delete(folder);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package in.gauravlanjekar.awscodegen;
+
+import io.swagger.util.Json;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The paths of the operations are compiled into the radix tree router.js matches requests with.
+ */
+public class RouteTableCompilerTest extends TestCase {
+
+    private static final Map<String, String> NO_TYPES = Collections.emptyMap();
+
+    private RouteTableCompiler compiler;
+
+    @Override
+    protected void setUp() {
+        compiler = new RouteTableCompiler();
+    }
+
+    public void testEdgesAreSplitAtTheCommonPrefix() throws IOException {
+        assertTrue(compiler.add("get", "/pets", NO_TYPES));
+        assertTrue(compiler.add("get", "/people", NO_TYPES));
+        assertTrue(compiler.add("post", "/pets", NO_TYPES));
+        assertEquals("{\"p\":\"\",\"s\":{\"/\":{\"p\":\"/pe\",\"s\":{\"o\":{\"p\":\"ople\",\"m\":{\"get\":1}},"
+                        + "\"t\":{\"p\":\"ts\",\"m\":{\"get\":0,\"post\":2}}}}}}",
+                Json.mapper().writeValueAsString(compiler.tree()));
+    }
+
+    public void testParametersKeepTheirNamesAndTypes() throws IOException {
+        Map<String, String> types = new HashMap<String, String>();
+        types.put("id", "integer");
+        assertTrue(compiler.add("get", "/pets/{id}/toys/{toyId}", types));
+        assertTrue(compiler.add("get", "/files/{path+}", types));
+        assertEquals("[{\"route\":\"get /pets/{id}/toys/{toyId}\","
+                        + "\"params\":[[\"id\",\"integer\"],[\"toyId\",\"string\"]]},"
+                        + "{\"route\":\"get /files/{path+}\",\"params\":[[\"path\",\"string\"]]}]",
+                Json.mapper().writeValueAsString(compiler.routes()));
+        assertEquals("{\"p\":\"\",\"s\":{\"/\":{\"p\":\"/\",\"s\":{\"f\":{\"p\":\"files/\",\"w\":{\"m\":{\"get\":1}}},"
+                        + "\"p\":{\"p\":\"pets/\",\"v\":{\"s\":{\"/\":{\"p\":\"/toys/\","
+                        + "\"v\":{\"m\":{\"get\":0}}}}}}}}}}",
+                Json.mapper().writeValueAsString(compiler.tree()));
+    }
+
+    public void testParametersHaveToBeWholeSegments() {
+        assertFalse(compiler.add("get", "/pets/{id}.json", NO_TYPES));
+        assertFalse(compiler.add("get", "/pets/id{id}", NO_TYPES));
+        assertFalse(compiler.add("get", "/files/{path+}/raw", NO_TYPES));
+        assertTrue(compiler.routes().isEmpty());
+    }
+
+    public void testTheFirstOperationOfAPathWins() {
+        assertTrue(compiler.add("get", "/pets/{id}", NO_TYPES));
+        assertTrue(compiler.add("get", "/pets/{petId}", NO_TYPES));
+        assertEquals(1, compiler.routes().size());
+        assertEquals("get /pets/{id}", compiler.routes().get(0).get("route"));
+    }
+
+    public void testGeneratedRouterMatchesRequests() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        GeneratedProject project = GeneratedProject.generate("petstore.yaml", NO_TYPES);
+        try {
+            GeneratedProject.Result result = GeneratedProject.node(project.folder,
+                    "const router = require('./router');\n"
+                            + "process.stdout.write(JSON.stringify([\n"
+                            + "  router.match('GET', '/pets/a%20b/toys/7'),\n"
+                            + "  router.match('HEAD', '/pets/a/'),\n"
+                            + "  router.match('GET', '/export'),\n"
+                            + "  router.match('POST', '/pets/batch-get'),\n"
+                            + "  router.match('POST', '/export'),\n"
+                            + "  router.match('GET', '/pets/a/toys'),\n"
+                            + "  router.typedParams('get /pets/{id}/toys/{toyId}', {id: '1', toyId: '2'})\n"
+                            + "]));");
+            assertEquals(result.output, 0, result.exitCode);
+            assertEquals("[{\"route\":\"get /pets/{id}/toys/{toyId}\",\"params\":{\"id\":\"a b\",\"toyId\":7}},"
+                            + "{\"route\":\"get /pets/{id}\",\"params\":{\"id\":\"a\"}},"
+                            + "{\"route\":\"get /export\",\"params\":{}},"
+                            + "{\"route\":\"post /pets/batch-get\",\"params\":{}},"
+                            + "null,null,"
+                            + "{\"id\":\"1\",\"toyId\":2}]",
+                    result.output);
+        } finally {
+            project.delete();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package in.gauravlanjekar.awscodegen;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Unpaginated lists are written to the response page by page as DynamoDB returns them.
+ */
+public class StreamedListsTest extends TestCase {
+
+    private GeneratedProject project;
+
+    @Override
+    protected void setUp() throws Exception {
+        project = GeneratedProject.generate("petstore.yaml", Collections.singletonMap("nopagination", ""));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        project.delete();
+    }
+
+    public void testControllersWriteThePagesOfTheService() throws IOException {
+        String controller = project.read("controllers/Pets.js");
+        assertTrue(controller, controller.contains("const stream = writer.jsonArrayStream(res);"));
+        assertTrue(controller, controller.contains("PetsService.listPets(requestId,owner,tag,fields,stream.write)"));
+        // the ETag of a streamed list would have to be known before its first page.
+        String list = controller.substring(controller.indexOf("handlers['get /pets']"));
+        assertFalse(list, list.substring(0, list.indexOf("};")).contains("ETag"));
+    }
+
+    public void testPagesAreHandedOnAsTheyAreRead() throws IOException {
+        if (!GeneratedProject.hasNode()) {
+            return;
+        }
+        project.installFakeDynamoose();
+        GeneratedProject.Result result = project.node("process.env.Pet_TABLE = 'pets';\n"
+                + "const dynamoose = require('dynamoose');\n"
+                + "const pets = [];\n"
+                + "for (let i = 0; i < 7; i++) pets.push({id: `${i}`, name: `pet ${i}`});\n"
+                + "dynamoose.put('pets', pets);\n"
+                + "const writer = require('./utils/writer');\n"
+                + "const chunks = [];\n"
+                + "const response = {\n"
+                + "  writeHead: (code, headers) => chunks.push(`${code} ${headers['Content-Type']}`),\n"
+                + "  write: chunk => chunks.push(chunk),\n"
+                + "  end: chunk => chunks.push(chunk)\n"
+                + "};\n"
+                + "const stream = writer.jsonArrayStream(response);\n"
+                + "const service = require('./service/PetsService');\n"
+                + "Promise.all([service.listPets('r1', undefined, undefined, 'id', stream.write),\n"
+                + "  service.listPets('r2')])\n"
+                + "  .then((results) => {\n"
+                + "    stream.end();\n"
+                + "    const result = [results[0], results[1].length, chunks];\n"
+                + "    // the metrics are logged to stdout.\n"
+                + "    require('fs').writeFileSync('result.json', JSON.stringify(result));\n"
+                + "  });");
+        assertEquals(result.output, 0, result.exitCode);
+        assertEquals("[7,7,[\"200 application/json\",\"[\",\"{\\\"id\\\":\\\"0\\\"},{\\\"id\\\":\\\"1\\\"},"
+                + "{\\\"id\\\":\\\"2\\\"}\",\",{\\\"id\\\":\\\"3\\\"},{\\\"id\\\":\\\"4\\\"},{\\\"id\\\":\\\"5\\\"}\","
+                + "\",{\\\"id\\\":\\\"6\\\"}\",\"]\"]]", project.read("result.json"));
+    }
+}
@@ -0,0 +1,43 @@
+package in.gauravlanjekar.awscodegen;
+
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Yaml;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * api/swagger.yaml is written straight from the preprocessed spec, without changing the shared YAML mapper.
+ */
+public class SwaggerYamlTest extends TestCase {
+
+    public void testPreprocessedSpecIsWritten() throws IOException {
+        GeneratedProject project = GeneratedProject.generate("petstore.yaml", Collections.<String, String>emptyMap());
+        try {
+            Swagger swagger = new SwaggerParser().read(project.file("api/swagger.yaml").getPath());
+            Path pet = swagger.getPath("/pets/{id}");
+            assertNotNull(pet.getGet().getVendorExtensions().get("x-amazon-apigateway-integration"));
+            assertNotNull(pet.getOperationMap().get(HttpMethod.OPTIONS));
+            assertEquals(GeneratedProject.spec("petstore.yaml").getDefinitions().keySet(),
+                    swagger.getDefinitions().keySet());
+            assertEquals("0.1\n", Yaml.mapper().writeValueAsString(0.1d).replace("--- ", ""));
+        } finally {
+            project.delete();
+        }
+    }
+
+    public void testUnselectedSpecIsNotWritten() throws IOException {
+        GeneratedProject project = GeneratedProject.generate("petstore.yaml",
+                Collections.singletonMap("supportingFiles", "index.js"));
+        try {
+            assertTrue(project.file("index.js").exists());
+            assertFalse(project.file("api/swagger.yaml").exists());
+        } finally {
+            project.delete();
+        }
+    }
+}
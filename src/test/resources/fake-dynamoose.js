@@ -0,0 +1,289 @@
+'use strict';
+// In-memory stand-in for the parts of dynamoose and of its DocumentClient the generated modules use.  Every request
+// goes through the request handler of ddb() like the real one and is recorded in `calls` as {operation, table,
+// params}, the tables models are created for in `models`.  Tables are lists of plain items, filled with
+// `put(tableName, items)`.
+
+const tables = {};
+const calls = [];
+const models = [];
+let requestHandler = null;
+
+function table(name) {
+  return tables[name] || (tables[name] = []);
+}
+
+function copy(item) {
+  return item === undefined ? undefined : JSON.parse(JSON.stringify(item));
+}
+
+function matches(item, key) {
+  return Object.keys(key).every(name => item[name] === key[name]);
+}
+
+function pick(item, attributes) {
+  if (!attributes) {
+    return copy(item);
+  }
+  const picked = {};
+  attributes.forEach((name) => {
+    if (item[name] !== undefined) {
+      picked[name] = copy(item[name]);
+    }
+  });
+  return picked;
+}
+
+/**
+ * Records a request, runs it through the request handler and resolves to its data on the next tick.
+ */
+function send(operation, tableName, params, run) {
+  calls.push({operation: operation, table: tableName, params: params});
+  const listeners = [];
+  const request = {operation: operation, params: params, on: (event, listener) => listeners.push(listener)};
+  if (requestHandler) {
+    requestHandler(request);
+  }
+  return new Promise(resolve => setImmediate(resolve)).then(() => {
+    const data = run();
+    const response = {data: Object.assign({ConsumedCapacity: {TableName: tableName, CapacityUnits: 1}}, data)};
+    listeners.forEach(listener => listener(response));
+    return data;
+  });
+}
+
+function promise(result) {
+  return {promise: () => result};
+}
+
+function DocumentClient() {
+}
+
+DocumentClient.prototype.get = function(params) {
+  return promise(send('getItem', params.TableName, params, () => {
+    const item = table(params.TableName).find(candidate => matches(candidate, params.Key));
+    return item ? {Item: copy(item)} : {};
+  }));
+};
+
+DocumentClient.prototype.delete = function(params) {
+  return promise(send('deleteItem', params.TableName, params, () => {
+    tables[params.TableName] = table(params.TableName).filter(candidate => !matches(candidate, params.Key));
+    return {};
+  }));
+};
+
+/**
+ * Applies the SET and REMOVE clauses of the UpdateExpression, a failing attribute_exists or version condition is
+ * rejected with a ConditionalCheckFailedException.
+ */
+DocumentClient.prototype.update = function(params) {
+  return promise(send('updateItem', params.TableName, params, () => {
+    const names = params.ExpressionAttributeNames || {};
+    const values = params.ExpressionAttributeValues || {};
+    const item = table(params.TableName).find(candidate => matches(candidate, params.Key));
+    const version = /#v = :expected/.test(params.ConditionExpression || '');
+    if (!item || (version && item[names['#v']] !== values[':expected'])) {
+      const err = new Error('The conditional request failed');
+      err.code = 'ConditionalCheckFailedException';
+      throw err;
+    }
+    const set = /SET (.*?)(?: REMOVE |$)/.exec(params.UpdateExpression);
+    // the commas inside if_not_exists do not separate clauses.
+    (set ? set[1].split(/, (?![^(]*\))/) : []).forEach((clause) => {
+      const increment = /^(#\w+) = if_not_exists\(#\w+, (:\w+)\) \+ (:\w+)$/.exec(clause);
+      if (increment) {
+        const current = item[names[increment[1]]];
+        item[names[increment[1]]] = (current === undefined ? values[increment[2]] : current) + values[increment[3]];
+        return;
+      }
+      const assignment = /^(#\w+) = (:\w+)$/.exec(clause);
+      item[names[assignment[1]]] = copy(values[assignment[2]]);
+    });
+    const remove = /REMOVE (.*)$/.exec(params.UpdateExpression);
+    (remove ? remove[1].split(', ') : []).forEach(name => delete item[names[name]]);
+    return params.ReturnValues === 'NONE' ? {} : {Attributes: copy(item)};
+  }));
+};
+
+DocumentClient.prototype.batchGet = function(params) {
+  const tableName = Object.keys(params.RequestItems)[0];
+  return promise(send('batchGetItem', tableName, params, () => {
+    const items = [];
+    params.RequestItems[tableName].Keys.forEach((key) => {
+      const item = table(tableName).find(candidate => matches(candidate, key));
+      if (item) {
+        items.push(copy(item));
+      }
+    });
+    return {Responses: {[tableName]: items}};
+  }));
+};
+
+DocumentClient.prototype.batchWrite = function(params) {
+  const tableName = Object.keys(params.RequestItems)[0];
+  return promise(send('batchWriteItem', tableName, params, () => {
+    params.RequestItems[tableName].forEach(request => table(tableName).push(copy(request.PutRequest.Item)));
+    return {};
+  }));
+};
+
+/**
+ * Every segment of a parallel scan gets the items whose position modulo TotalSegments is its Segment, one page of
+ * at most two items at a time.  Only contains filters are understood.
+ */
+DocumentClient.prototype.scan = function(params) {
+  return promise(send('scan', params.TableName, params, () => {
+    const names = params.ExpressionAttributeNames || {};
+    const values = params.ExpressionAttributeValues || {};
+    const filters = (params.FilterExpression || '').split(' AND ').filter(filter => filter).map((filter) => {
+      const contains = /^contains\((#\w+), (:\w+)\)$/.exec(filter);
+      return {name: names[contains[1]], value: values[contains[2]]};
+    });
+    const attributes = params.ProjectionExpression
+      ? params.ProjectionExpression.split(', ').map(name => names[name]) : null;
+    const segment = table(params.TableName)
+      .filter((item, i) => i % (params.TotalSegments || 1) === (params.Segment || 0));
+    const start = params.ExclusiveStartKey ? params.ExclusiveStartKey.position : 0;
+    const page = segment.slice(start, start + 2)
+      .filter(item => filters.every(filter => String(item[filter.name]).indexOf(filter.value) >= 0))
+      .map(item => pick(item, attributes));
+    const data = {Items: page};
+    if (start + 2 < segment.length) {
+      data.LastEvaluatedKey = {position: start + 2};
+    }
+    return data;
+  }));
+};
+
+/**
+ * A query or scan of a model, exec passes the page of items to the callback with the key to start the next page
+ * at as its lastKey.  Attribute names and values are recorded in the params of the request as they are set.
+ */
+function ModelRequest(Model, operation, attribute) {
+  this.Model = Model;
+  this.operation = operation;
+  this.conditions = [];
+  this.filters = [];
+  this.params = {};
+  this.attribute = attribute;
+}
+
+ModelRequest.prototype.eq = function(value) {
+  this.conditions.push({name: this.attribute, value: value});
+  this.params.KeyCondition = {[this.attribute]: value};
+  return this;
+};
+
+ModelRequest.prototype.using = function(index) {
+  this.params.IndexName = index;
+  return this;
+};
+
+ModelRequest.prototype.filter = function(name) {
+  this.attribute = name;
+  return this;
+};
+
+ModelRequest.prototype.contains = function(value) {
+  this.filters.push({name: this.attribute, value: value});
+  this.params.Filter = Object.assign({}, this.params.Filter, {[this.attribute]: value});
+  return this;
+};
+
+ModelRequest.prototype.attributes = function(attributes) {
+  this.params.Attributes = attributes;
+  return this;
+};
+
+ModelRequest.prototype.limit = function(limit) {
+  this.params.Limit = limit;
+  return this;
+};
+
+ModelRequest.prototype.startAt = function(key) {
+  this.params.ExclusiveStartKey = key;
+  return this;
+};
+
+ModelRequest.prototype.exec = function(callback) {
+  const Model = this.Model;
+  const params = this.params;
+  send(this.operation, Model.tableName, params, () => {
+    const items = table(Model.tableName)
+      .filter(item => this.conditions.every(condition => item[condition.name] === condition.value))
+      .filter(item => this.filters.every(filter => String(item[filter.name]).indexOf(filter.value) >= 0));
+    let start = 0;
+    if (params.ExclusiveStartKey) {
+      start = items.findIndex(item => matches(item, params.ExclusiveStartKey)) + 1;
+    }
+    // without a Limit a page ends at 1 MB of items in DynamoDB, here at three items.
+    const limit = params.Limit || 3;
+    const page = items.slice(start, start + limit).map(item => new Model(pick(item, params.Attributes)));
+    if (start + limit < items.length) {
+      const last = items[start + limit - 1];
+      page.lastKey = {[Model.hashKey]: last[Model.hashKey]};
+    }
+    return page;
+  }).then(items => callback(null, items), callback);
+};
+
+/**
+ * A model class like the ones dynamoose creates, items are instances with the attributes as own properties.
+ */
+exports.model = function(tableName, definition) {
+  models.push(tableName);
+  function Model(attributes) {
+    Object.assign(this, attributes);
+  }
+  Model.tableName = tableName;
+  Model.hashKey = Object.keys(definition).find(name => definition[name].hashKey);
+  Model.get = function(key, options) {
+    const params = Object.assign({Key: key}, options);
+    return send('getItem', tableName, params, () => {
+      const item = table(tableName).find(candidate => matches(candidate, key));
+      return item ? new Model(pick(item, options && options.attributes)) : undefined;
+    });
+  };
+  Model.query = name => new ModelRequest(Model, 'query', name);
+  Model.scan = () => new ModelRequest(Model, 'scan');
+  Model.prototype.save = function() {
+    return send('putItem', tableName, {Item: copy(this)}, () => {
+      const key = {[Model.hashKey]: this[Model.hashKey]};
+      tables[tableName] = table(tableName).filter(candidate => !matches(candidate, key)).concat([copy(this)]);
+      return this;
+    });
+  };
+  Model.prototype.toJSON = function() {
+    return Object.assign({}, this);
+  };
+  return Model;
+};
+
+exports.AWS = {config: {update() {}}, DynamoDB: {DocumentClient: DocumentClient}};
+
+exports.local = function() {
+};
+
+const ddb = {
+  customizeRequests(handler) {
+    requestHandler = handler;
+  }
+};
+
+exports.ddb = function() {
+  return ddb;
+};
+
+exports.calls = calls;
+
+// the tables of the models created so far.
+exports.models = models;
+
+exports.put = function(tableName, items) {
+  Array.prototype.push.apply(table(tableName), items.map(copy));
+};
+
+exports.items = function(tableName) {
+  return copy(table(tableName));
+};